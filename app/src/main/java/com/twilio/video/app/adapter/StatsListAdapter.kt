@@ -18,24 +18,62 @@ package com.twilio.video.app.adapter
 
 import android.annotation.SuppressLint
 import android.content.Context
-import android.os.Handler
-import android.os.Looper
 import android.view.LayoutInflater
 import android.view.View
 import android.view.ViewGroup
 import androidx.recyclerview.widget.RecyclerView
-import com.twilio.video.RemoteAudioTrack
-import com.twilio.video.RemoteParticipant
-import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.BaseTrackStats
 import com.twilio.video.app.R
 import com.twilio.video.app.databinding.StatsViewBinding
 import com.twilio.video.app.model.StatsListItem
+import com.twilio.video.app.model.StatsListItem.AUDIO_LEVEL_CHANGED
+import com.twilio.video.app.model.StatsListItem.AVERAGE_BITRATE_CHANGED
+import com.twilio.video.app.model.StatsListItem.BITRATE_CHANGED
+import com.twilio.video.app.model.StatsListItem.BYTES_CHANGED
+import com.twilio.video.app.model.StatsListItem.CODEC_CHANGED
+import com.twilio.video.app.model.StatsListItem.DIMENSIONS_CHANGED
+import com.twilio.video.app.model.StatsListItem.FRAMERATE_CHANGED
+import com.twilio.video.app.model.StatsListItem.FREEZES_CHANGED
+import com.twilio.video.app.model.StatsListItem.JITTER_CHANGED
+import com.twilio.video.app.model.StatsListItem.PACKETS_LOST_CHANGED
+import com.twilio.video.app.model.StatsListItem.PACKET_LOSS_RATE_CHANGED
+import com.twilio.video.app.model.StatsListItem.RTT_CHANGED
+import com.twilio.video.app.model.StatsListItem.TRACK_NAME_CHANGED
 import com.twilio.video.app.sdk.RoomStats
+import java.util.ArrayDeque
+import java.util.Locale
 
+/* Payload of a rebind that only rewrites the fields a row reports as changed. */
+private val PARTIAL_BIND = Any()
+
+/*
+ * Rows are keyed by track sid, have stable ids and are updated in place, so a stats tick only
+ * rewrites the text of the fields that changed. Rows of tracks that went away are pooled and track
+ * labels are only built when a row is created or its participant identity or track index changes,
+ * which keeps a tick allocation free as long as the set of tracks stays the same.
+ *
+ * This is a plain RecyclerView.Adapter rather than a ListAdapter: rows are updated in place, so
+ * DiffUtil would compare every row with itself. The rows record their own changed fields instead
+ * and are notified with a partial payload.
+ *
+ * All methods must be called from the main thread.
+ */
 class StatsListAdapter(private val context: Context) : RecyclerView.Adapter<StatsListAdapter.ViewHolder>() {
 
-    private val statsListItems = ArrayList<StatsListItem>()
-    private val handler: Handler = Handler(Looper.getMainLooper())
+    private var rows = ArrayList<StatsListItem>()
+    private var nextRows = ArrayList<StatsListItem>()
+    private val rowsBySid = HashMap<String, StatsListItem>()
+    private val rowPool = ArrayDeque<StatsListItem>()
+    private var generation = 0
+    private var nextItemId = 0L
+    private val localAudioTrackName = context.getString(R.string.local_audio_track)
+    private val localVideoTrackName = context.getString(R.string.local_video_track)
+    private val audioTrackName = context.getString(R.string.audio_track)
+    private val videoTrackName = context.getString(R.string.video_track)
+
+    init {
+        setHasStableIds(true)
+    }
 
     class ViewHolder(internal val binding: StatsViewBinding) : RecyclerView.ViewHolder(binding.root)
 
@@ -45,14 +83,47 @@ class StatsListAdapter(private val context: Context) : RecyclerView.Adapter<Stat
         return ViewHolder(binding)
     }
 
+    override fun getItemId(position: Int): Long = rows[position].id
+
+    override fun onBindViewHolder(holder: ViewHolder, position: Int, payloads: MutableList<Any>) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position)
+            return
+        }
+        val item = rows[position]
+        val changes = item.consumeChanges()
+        val binding = holder.binding
+        if (changes and TRACK_NAME_CHANGED != 0) binding.trackName.text = item.trackName
+        if (changes and CODEC_CHANGED != 0) binding.codec.text = item.codec
+        if (changes and PACKETS_LOST_CHANGED != 0) binding.packetsLost.text = item.packetsLost.toString()
+        if (changes and BYTES_CHANGED != 0) binding.bytes.text = item.bytes.toString()
+        if (changes and BITRATE_CHANGED != 0) binding.bitrate.text = item.bitrateKbps.toString()
+        if (changes and AVERAGE_BITRATE_CHANGED != 0) {
+            binding.averageBitrate.text = item.averageBitrateKbps.toString()
+        }
+        if (changes and PACKET_LOSS_RATE_CHANGED != 0) {
+            binding.packetLossRate.text = formatPacketLossRate(item.packetLossPercent)
+        }
+        if (changes and RTT_CHANGED != 0) binding.rtt.text = item.rtt.toString()
+        if (changes and DIMENSIONS_CHANGED != 0) binding.dimensions.text = formatDimensions(item)
+        if (changes and FRAMERATE_CHANGED != 0) binding.framerate.text = item.framerate.toString()
+        if (changes and JITTER_CHANGED != 0) binding.jitter.text = item.jitter.toString()
+        if (changes and AUDIO_LEVEL_CHANGED != 0) binding.audioLevel.text = item.audioLevel.toString()
+        if (changes and FREEZES_CHANGED != 0) binding.freezes.text = formatFreezes(item)
+    }
+
     override fun onBindViewHolder(holder: ViewHolder, position: Int) {
-        val item = statsListItems[position]
+        val item = rows[position]
+        item.consumeChanges()
         val binding = holder.binding
         binding.trackName.text = item.trackName
         binding.trackSid.text = item.trackSid
         binding.codec.text = item.codec
         binding.packetsLost.text = item.packetsLost.toString()
         binding.bytes.text = item.bytes.toString()
+        binding.bitrate.text = item.bitrateKbps.toString()
+        binding.averageBitrate.text = item.averageBitrateKbps.toString()
+        binding.packetLossRate.text = formatPacketLossRate(item.packetLossPercent)
         if (item.isLocalTrack) {
             binding.bytesTitle.text = context.getString(R.string.stats_bytes_sent)
             binding.rtt.text = item.rtt.toString()
@@ -66,166 +137,159 @@ class StatsListAdapter(private val context: Context) : RecyclerView.Adapter<Stat
             binding.audioLevel.text = item.audioLevel.toString()
             binding.dimensionsRow.visibility = View.GONE
             binding.framerateRow.visibility = View.GONE
+            binding.freezesRow.visibility = View.GONE
             binding.jitterRow.visibility = View.VISIBLE
             binding.audioLevelRow.visibility = View.VISIBLE
         } else {
-            binding.dimensions.text = item.dimensions
+            binding.dimensions.text = formatDimensions(item)
             binding.framerate.text = item.framerate.toString()
+            binding.freezes.text = formatFreezes(item)
             binding.dimensionsRow.visibility = View.VISIBLE
             binding.framerateRow.visibility = View.VISIBLE
+            binding.freezesRow.visibility = View.VISIBLE
             binding.jitterRow.visibility = View.GONE
             binding.audioLevelRow.visibility = View.GONE
         }
     }
 
     override fun getItemCount(): Int {
-        return statsListItems.size
+        return rows.size
     }
 
-    /* because every stats notification resets the data set, suppress lint warning */
+    /* a change of the tracks is rare, stable ids still let RecyclerView keep the rows */
     @SuppressLint("NotifyDataSetChanged")
     fun updateStatsData(roomStats: RoomStats?) {
-        /*
-         * Generate new items on a separate list to ensure statsListItems changes are only
-         * performed on the UI thread to meet the threading requirement of RecyclerView.Adapter.
-         */
-        val statsItemList = mutableListOf<StatsListItem>()
-
-        // Generate stats items list from reports
-        var localTracksAdded = false
+        generation++
         roomStats?.statsReports?.let { statsReports ->
-            for (report in statsReports) {
-                if (!localTracksAdded) {
-                    // go through local tracks
-                    for (localAudioTrackStats in report.localAudioTrackStats) {
-                        val item = StatsListItem.Builder()
-                            .baseTrackInfo(localAudioTrackStats)
-                            .bytes(localAudioTrackStats.bytesSent)
-                            .rtt(localAudioTrackStats.roundTripTime)
-                            .jitter(localAudioTrackStats.jitter)
-                            .audioLevel(localAudioTrackStats.audioLevel)
-                            .trackName(context.getString(R.string.local_audio_track))
-                            .isAudioTrack(true)
-                            .isLocalTrack(true)
-                            .build()
-                        statsItemList.add(item)
+            for (i in 0 until statsReports.size) {
+                val report = statsReports[i]
+                if (i == 0) {
+                    val localAudioTrackStats = report.localAudioTrackStats
+                    for (j in 0 until localAudioTrackStats.size) {
+                        val stats = localAudioTrackStats[j]
+                        val row = obtainRow(stats, isLocalTrack = true, isAudioTrack = true)
+                        row.setTrackName(localAudioTrackName)
+                        updateRow(row, roomStats, stats, stats.bytesSent)
+                        row.setRtt(stats.roundTripTime)
+                        row.setJitter(stats.jitter)
+                        row.setAudioLevel(stats.audioLevel)
                     }
-                    for (localVideoTrackStats in report.localVideoTrackStats) {
-                        var localVideoTrackName = roomStats.localVideoTrackNames[localVideoTrackStats.trackSid]
-                        if (localVideoTrackName == null) {
-                            localVideoTrackName = context.getString(R.string.local_video_track)
-                        }
-                        val item = StatsListItem.Builder()
-                            .baseTrackInfo(localVideoTrackStats)
-                            .bytes(localVideoTrackStats.bytesSent)
-                            .rtt(localVideoTrackStats.roundTripTime)
-                            .dimensions(localVideoTrackStats.dimensions.toString())
-                            .framerate(localVideoTrackStats.frameRate)
-                            .trackName(localVideoTrackName)
-                            .isAudioTrack(false)
-                            .isLocalTrack(true)
-                            .build()
-                        statsItemList.add(item)
+                    val localVideoTrackStats = report.localVideoTrackStats
+                    for (j in 0 until localVideoTrackStats.size) {
+                        val stats = localVideoTrackStats[j]
+                        val row = obtainRow(stats, isLocalTrack = true, isAudioTrack = false)
+                        row.setTrackName(roomStats.localVideoTrackNames[stats.trackSid] ?: localVideoTrackName)
+                        updateRow(row, roomStats, stats, stats.bytesSent)
+                        row.setRtt(stats.roundTripTime)
+                        row.setDimensions(stats.dimensions.width, stats.dimensions.height)
+                        row.setFramerate(stats.frameRate)
+                        updateFreezes(row, roomStats)
                     }
-                    localTracksAdded = true
                 }
-                var trackCount = 0
-                for (remoteAudioTrackStats in report.remoteAudioTrackStats) {
-                    val trackName = (
-                        getParticipantName(remoteAudioTrackStats.trackSid, true, roomStats.remoteParticipants) +
-                            " " +
-                            context.getString(R.string.audio_track) +
-                            " " +
-                            trackCount
-                        )
-                    val item = StatsListItem.Builder()
-                        .baseTrackInfo(remoteAudioTrackStats)
-                        .bytes(remoteAudioTrackStats.bytesReceived)
-                        .jitter(remoteAudioTrackStats.jitter)
-                        .audioLevel(remoteAudioTrackStats.audioLevel)
-                        .trackName(trackName)
-                        .isAudioTrack(true)
-                        .isLocalTrack(false)
-                        .build()
-                    statsItemList.add(item)
-                    trackCount++
+                val remoteAudioTrackStats = report.remoteAudioTrackStats
+                for (j in 0 until remoteAudioTrackStats.size) {
+                    val stats = remoteAudioTrackStats[j]
+                    val row = obtainRow(stats, isLocalTrack = false, isAudioTrack = true)
+                    updateRemoteTrackName(row, roomStats, audioTrackName, j)
+                    updateRow(row, roomStats, stats, stats.bytesReceived)
+                    row.setJitter(stats.jitter)
+                    row.setAudioLevel(stats.audioLevel)
                 }
-                trackCount = 0
-                for (remoteVideoTrackStats in report.remoteVideoTrackStats) {
-                    val trackName = (
-                        getParticipantName(
-                            remoteVideoTrackStats.trackSid,
-                            false,
-                            roomStats.remoteParticipants,
-                        ) +
-                            " " +
-                            context.getString(R.string.video_track) +
-                            " " +
-                            trackCount
-                        )
-                    val item = StatsListItem.Builder()
-                        .baseTrackInfo(remoteVideoTrackStats)
-                        .bytes(remoteVideoTrackStats.bytesReceived)
-                        .dimensions(remoteVideoTrackStats.dimensions.toString())
-                        .framerate(remoteVideoTrackStats.frameRate)
-                        .trackName(trackName)
-                        .isAudioTrack(false)
-                        .isLocalTrack(false)
-                        .build()
-                    statsItemList.add(item)
-                    trackCount++
+                val remoteVideoTrackStats = report.remoteVideoTrackStats
+                for (j in 0 until remoteVideoTrackStats.size) {
+                    val stats = remoteVideoTrackStats[j]
+                    val row = obtainRow(stats, isLocalTrack = false, isAudioTrack = false)
+                    updateRemoteTrackName(row, roomStats, videoTrackName, j)
+                    updateRow(row, roomStats, stats, stats.bytesReceived)
+                    row.setDimensions(stats.dimensions.width, stats.dimensions.height)
+                    row.setFramerate(stats.frameRate)
+                    updateFreezes(row, roomStats)
                 }
             }
         }
 
-        handler.post {
-            statsListItems.clear()
-            statsListItems.addAll(statsItemList.toList())
+        var isStructureChanged = nextRows.size != rows.size
+        for (i in 0 until nextRows.size) {
+            if (isStructureChanged) break
+            isStructureChanged = nextRows[i] !== rows[i]
+        }
+        if (rowsBySid.size > nextRows.size) releaseRemovedRows()
+        val previousRows = rows
+        rows = nextRows
+        nextRows = previousRows
+        nextRows.clear()
+
+        if (isStructureChanged) {
             notifyDataSetChanged()
+        } else {
+            for (i in 0 until rows.size) {
+                if (rows[i].hasChanges()) notifyItemChanged(i, PARTIAL_BIND)
+            }
         }
     }
 
-    private fun getParticipantName(
-        trackSid: String,
-        isAudioTrack: Boolean,
-        remoteParticipants: List<RemoteParticipant>,
-    ): String {
-        for (remoteParticipant in remoteParticipants) {
-            if (isAudioTrack) {
-                val remoteAudioTrack = getAudioTrack(remoteParticipant, trackSid)
-                if (remoteAudioTrack != null) {
-                    return remoteParticipant.identity
-                }
-            } else {
-                val remoteVideoTrack = getRemoteVideoTrack(remoteParticipant, trackSid)
-                if (remoteVideoTrack != null) {
-                    return remoteParticipant.identity
-                }
-            }
+    private fun obtainRow(stats: BaseTrackStats, isLocalTrack: Boolean, isAudioTrack: Boolean): StatsListItem {
+        val row = rowsBySid[stats.trackSid] ?: (rowPool.pollFirst() ?: StatsListItem()).also {
+            it.reset(stats.trackSid, isLocalTrack, isAudioTrack)
+            it.id = nextItemId++
+            rowsBySid[stats.trackSid] = it
         }
-        return ""
+        row.generation = generation
+        nextRows.add(row)
+        return row
     }
 
-    private fun getAudioTrack(remoteParticipant: RemoteParticipant, trackSid: String): RemoteAudioTrack? {
-        for (remoteAudioTrackPublication in remoteParticipant.remoteAudioTracks) {
-            if (remoteAudioTrackPublication.trackSid == trackSid) {
-                return remoteAudioTrackPublication.remoteAudioTrack
-            }
+    private fun updateRow(row: StatsListItem, roomStats: RoomStats, stats: BaseTrackStats, bytes: Long) {
+        row.setCodec(stats.codec)
+        row.setPacketsLost(stats.packetsLost)
+        row.setBytes(bytes)
+        roomStats.trackRates[stats.trackSid]?.let { rates ->
+            row.setBitrateKbps(rates.bitrateKbps)
+            row.setPacketLossPercent(rates.packetLossPercent)
         }
+        roomStats.averageBitratesKbps[stats.trackSid]?.let { row.setAverageBitrateKbps(it) }
+    }
 
-        return null
+    private fun updateFreezes(row: StatsListItem, roomStats: RoomStats) {
+        roomStats.videoFreezeStats[row.trackSid]?.let { freezeStats ->
+            row.setFreezes(freezeStats.freezeCount, freezeStats.totalFreezeDurationMs)
+        }
     }
 
-    private fun getRemoteVideoTrack(
-        remoteParticipant: RemoteParticipant,
-        trackSid: String,
-    ): RemoteVideoTrack? {
-        for (remoteVideoTrackPublication in remoteParticipant.remoteVideoTracks) {
-            if (remoteVideoTrackPublication.trackSid == trackSid) {
-                return remoteVideoTrackPublication.remoteVideoTrack
-            }
+    /*
+     * The label is only rebuilt when the identity of the participant is resolved or changes, or
+     * when the track moved to another index in the report because tracks were added or removed.
+     */
+    private fun updateRemoteTrackName(
+        row: StatsListItem,
+        roomStats: RoomStats,
+        kindName: String,
+        trackIndex: Int,
+    ) {
+        val identity = roomStats.remoteTracks[row.trackSid]?.identity ?: ""
+        if (row.trackName == null || identity != row.participantIdentity || trackIndex != row.trackIndex) {
+            row.participantIdentity = identity
+            row.trackIndex = trackIndex
+            row.setTrackName("$identity $kindName $trackIndex")
         }
+    }
 
-        return null
+    private fun releaseRemovedRows() {
+        val iterator = rowsBySid.values.iterator()
+        while (iterator.hasNext()) {
+            val row = iterator.next()
+            if (row.generation != generation) {
+                iterator.remove()
+                rowPool.addLast(row)
+            }
+        }
     }
+
+    private fun formatPacketLossRate(packetLossPercent: Float) =
+        String.format(Locale.US, "%.1f", packetLossPercent)
+
+    private fun formatDimensions(item: StatsListItem) = "${item.width}x${item.height}"
+
+    private fun formatFreezes(item: StatsListItem) =
+        String.format(Locale.US, "%d / %.1f", item.freezeCount, item.freezeDurationMs / 1000f)
 }
@@ -16,107 +16,176 @@
 
 package com.twilio.video.app.model;
 
-import com.twilio.video.BaseTrackStats;
-
+/*
+ * Mutable stats row that is reused across stats ticks. Setters record which fields changed since
+ * the row was last bound, so the adapter only rewrites those and no objects are allocated while
+ * the set of tracks stays the same.
+ */
 public class StatsListItem {
-    public final String trackSid;
-    public final String trackName;
-    public final String codec;
-    public final int packetsLost;
-    public final long bytes;
-    public final long rtt;
-    public final String dimensions;
-    public final int framerate;
-    public final int jitter;
-    public final int audioLevel;
-    public final boolean isLocalTrack;
-    public final boolean isAudioTrack;
-
-    private StatsListItem(Builder builder) {
-        this.trackSid = builder.trackSid;
-        this.trackName = builder.trackName;
-        this.codec = builder.codec;
-        this.packetsLost = builder.packetsLost;
-        this.bytes = builder.bytes;
-        this.rtt = builder.rtt;
-        this.dimensions = builder.dimensions;
-        this.framerate = builder.framerate;
-        this.jitter = builder.jitter;
-        this.audioLevel = builder.audioLevel;
-        this.isLocalTrack = builder.isLocalTrack;
-        this.isAudioTrack = builder.isAudioTrack;
-    }
-
-    public static class Builder {
-        private String trackSid;
-        private String trackName;
-        private String codec;
-        private int packetsLost;
-        private long bytes;
-        private long rtt;
-        private String dimensions;
-        private int framerate;
-        private int jitter;
-        private int audioLevel;
-        private boolean isLocalTrack;
-        private boolean isAudioTrack;
-
-        public Builder() {}
-
-        public Builder trackName(String trackName) {
+    public static final int TRACK_NAME_CHANGED = 1;
+    public static final int CODEC_CHANGED = 1 << 1;
+    public static final int PACKETS_LOST_CHANGED = 1 << 2;
+    public static final int BYTES_CHANGED = 1 << 3;
+    public static final int BITRATE_CHANGED = 1 << 4;
+    public static final int AVERAGE_BITRATE_CHANGED = 1 << 5;
+    public static final int PACKET_LOSS_RATE_CHANGED = 1 << 6;
+    public static final int RTT_CHANGED = 1 << 7;
+    public static final int DIMENSIONS_CHANGED = 1 << 8;
+    public static final int FRAMERATE_CHANGED = 1 << 9;
+    public static final int JITTER_CHANGED = 1 << 10;
+    public static final int AUDIO_LEVEL_CHANGED = 1 << 11;
+    public static final int FREEZES_CHANGED = 1 << 12;
+    public static final int ALL_CHANGED = (1 << 13) - 1;
+
+    public long id;
+    public String trackSid;
+    public String trackName;
+    public String participantIdentity;
+    public int trackIndex;
+    public String codec;
+    public int packetsLost;
+    public long bytes;
+    public long bitrateKbps;
+    public long averageBitrateKbps;
+    public float packetLossPercent;
+    public long rtt;
+    public int width;
+    public int height;
+    public int framerate;
+    public int jitter;
+    public int audioLevel;
+    public int freezeCount;
+    public long freezeDurationMs;
+    public boolean isLocalTrack;
+    public boolean isAudioTrack;
+    public int generation;
+    private int changes;
+
+    public void reset(String trackSid, boolean isLocalTrack, boolean isAudioTrack) {
+        this.trackSid = trackSid;
+        this.isLocalTrack = isLocalTrack;
+        this.isAudioTrack = isAudioTrack;
+        trackName = null;
+        participantIdentity = null;
+        trackIndex = -1;
+        codec = null;
+        packetsLost = 0;
+        bytes = 0;
+        bitrateKbps = 0;
+        averageBitrateKbps = 0;
+        packetLossPercent = 0;
+        rtt = 0;
+        width = 0;
+        height = 0;
+        framerate = 0;
+        jitter = 0;
+        audioLevel = 0;
+        freezeCount = 0;
+        freezeDurationMs = 0;
+        changes = ALL_CHANGED;
+    }
+
+    /* Returns the fields that changed since the last call and clears them. */
+    public int consumeChanges() {
+        int changes = this.changes;
+        this.changes = 0;
+        return changes;
+    }
+
+    public boolean hasChanges() {
+        return changes != 0;
+    }
+
+    public void setTrackName(String trackName) {
+        if (!trackName.equals(this.trackName)) {
             this.trackName = trackName;
-            return this;
+            changes |= TRACK_NAME_CHANGED;
         }
+    }
+
+    public void setCodec(String codec) {
+        if (codec != null && !codec.equals(this.codec)) {
+            this.codec = codec;
+            changes |= CODEC_CHANGED;
+        }
+    }
 
-        public Builder bytes(long bytes) {
+    public void setPacketsLost(int packetsLost) {
+        if (this.packetsLost != packetsLost) {
+            this.packetsLost = packetsLost;
+            changes |= PACKETS_LOST_CHANGED;
+        }
+    }
+
+    public void setBytes(long bytes) {
+        if (this.bytes != bytes) {
             this.bytes = bytes;
-            return this;
+            changes |= BYTES_CHANGED;
         }
+    }
 
-        public Builder rtt(long rtt) {
-            this.rtt = rtt;
-            return this;
+    public void setBitrateKbps(long bitrateKbps) {
+        if (this.bitrateKbps != bitrateKbps) {
+            this.bitrateKbps = bitrateKbps;
+            changes |= BITRATE_CHANGED;
         }
+    }
 
-        public Builder dimensions(String dimensions) {
-            this.dimensions = dimensions;
-            return this;
+    public void setAverageBitrateKbps(long averageBitrateKbps) {
+        if (this.averageBitrateKbps != averageBitrateKbps) {
+            this.averageBitrateKbps = averageBitrateKbps;
+            changes |= AVERAGE_BITRATE_CHANGED;
         }
+    }
 
-        public Builder framerate(int framerate) {
-            this.framerate = framerate;
-            return this;
+    public void setPacketLossPercent(float packetLossPercent) {
+        if (Float.compare(this.packetLossPercent, packetLossPercent) != 0) {
+            this.packetLossPercent = packetLossPercent;
+            changes |= PACKET_LOSS_RATE_CHANGED;
         }
+    }
 
-        public Builder jitter(int jitter) {
-            this.jitter = jitter;
-            return this;
+    public void setRtt(long rtt) {
+        if (this.rtt != rtt) {
+            this.rtt = rtt;
+            changes |= RTT_CHANGED;
         }
+    }
 
-        public Builder audioLevel(int audioLevel) {
-            this.audioLevel = audioLevel;
-            return this;
+    public void setDimensions(int width, int height) {
+        if (this.width != width || this.height != height) {
+            this.width = width;
+            this.height = height;
+            changes |= DIMENSIONS_CHANGED;
         }
+    }
 
-        public Builder isLocalTrack(boolean isLocalTrack) {
-            this.isLocalTrack = isLocalTrack;
-            return this;
+    public void setFramerate(int framerate) {
+        if (this.framerate != framerate) {
+            this.framerate = framerate;
+            changes |= FRAMERATE_CHANGED;
         }
+    }
 
-        public Builder isAudioTrack(boolean isAudioTrack) {
-            this.isAudioTrack = isAudioTrack;
-            return this;
+    public void setJitter(int jitter) {
+        if (this.jitter != jitter) {
+            this.jitter = jitter;
+            changes |= JITTER_CHANGED;
         }
+    }
 
-        public Builder baseTrackInfo(BaseTrackStats trackStats) {
-            this.codec = trackStats.codec;
-            this.packetsLost = trackStats.packetsLost;
-            this.trackSid = trackStats.trackSid;
-            return this;
+    public void setAudioLevel(int audioLevel) {
+        if (this.audioLevel != audioLevel) {
+            this.audioLevel = audioLevel;
+            changes |= AUDIO_LEVEL_CHANGED;
         }
+    }
 
-        public StatsListItem build() {
-            return new StatsListItem(this);
+    public void setFreezes(int freezeCount, long freezeDurationMs) {
+        if (this.freezeCount != freezeCount || this.freezeDurationMs != freezeDurationMs) {
+            this.freezeCount = freezeCount;
+            this.freezeDurationMs = freezeDurationMs;
+            changes |= FREEZES_CHANGED;
         }
     }
 }
@@ -0,0 +1,25 @@
+package com.twilio.video.app.participant
+
+/*
+ * Damps how the thumbnails react to dominant speaker changes. A new dominant speaker is only
+ * accepted once the current one has been dominant for minHoldTimeMs, the thumbnails are reordered
+ * at most once every minReorderIntervalMs and a dominant speaker that is already shown within the
+ * first stickyThumbnailCount remote thumbnails is not moved at all. Changes that are held back are
+ * applied once the policy allows them.
+ */
+data class DominantSpeakerPolicy(
+    val minHoldTimeMs: Long = 0,
+    val minReorderIntervalMs: Long = 0,
+    val stickyThumbnailCount: Int = 0,
+) {
+    val isImmediate: Boolean get() = minHoldTimeMs <= 0 && minReorderIntervalMs <= 0
+
+    companion object {
+        val IMMEDIATE = DominantSpeakerPolicy()
+        val DAMPED = DominantSpeakerPolicy(
+            minHoldTimeMs = 2000,
+            minReorderIntervalMs = 3000,
+            stickyThumbnailCount = 3,
+        )
+    }
+}
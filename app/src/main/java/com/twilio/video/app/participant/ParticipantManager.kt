@@ -1,61 +1,123 @@
 package com.twilio.video.app.participant
 
+import android.os.SystemClock
 import com.twilio.video.NetworkQualityLevel
 import com.twilio.video.TrackPriority.HIGH
+import com.twilio.video.app.sdk.QoeScore
 import com.twilio.video.app.sdk.VideoTrackViewState
 import timber.log.Timber
 
-class ParticipantManager {
+/*
+ * Participants are stored in a map keyed by sid with a separate list of sids for the thumbnail
+ * order, so lookups and updates do not scan the participants and reordering only moves sids. The
+ * local participant is keyed by null until its sid is known.
+ *
+ * participantThumbnails is a snapshot that is only rebuilt after a mutation, so reading it
+ * repeatedly returns the same list and participants that were not updated keep their identity.
+ * The snapshot is cached by the getter, so like the mutations it must only be read on the main
+ * thread. State reducers get the snapshot read when they were created, never the manager.
+ *
+ * Every mutation recomputes the primary participant and its track priorities, unless it is made
+ * inside batch, in which case they are recomputed once when the outermost batch completes.
+ *
+ * Dominant speaker changes are damped by the DominantSpeakerPolicy. A change that the policy holds
+ * back stays pending until applyPendingDominantSpeaker is called after
+ * pendingDominantSpeakerDelayMs.
+ */
+class ParticipantManager(
+    private val dominantSpeakerPolicy: DominantSpeakerPolicy = DominantSpeakerPolicy.IMMEDIATE,
+    private val clock: () -> Long = { SystemClock.elapsedRealtime() },
+) {
 
-    private val mutableParticipants = mutableListOf<ParticipantViewState>()
-    val participantThumbnails: List<ParticipantViewState> get() = mutableParticipants.toList()
+    private val participants = HashMap<String?, ParticipantViewState>()
+    private val participantOrder = ArrayList<String?>()
+    private var localParticipantKey: String? = null
+    private var batchDepth = 0
+    private var isPrimaryParticipantStale = false
+    private var thumbnailSnapshot: List<ParticipantViewState>? = null
+    val participantThumbnails: List<ParticipantViewState>
+        get() = thumbnailSnapshot ?: participantOrder.map { participants.getValue(it) }.also {
+            thumbnailSnapshot = it
+        }
     var primaryParticipant: ParticipantViewState
         private set
 
+    private var dominantSpeakerSid: String? = null
+    private var dominantSpeakerTimestamp = 0L
+    private var lastReorderTimestamp: Long? = null
+    private var isDominantSpeakerPending = false
+    private var pendingDominantSpeakerSid: String? = null
+    var suppressedDominantSpeakerChanges = 0
+        private set
+    var suppressedReorders = 0
+        private set
+
+    /* Milliseconds until a held back dominant speaker change can be applied, null if none. */
+    val pendingDominantSpeakerDelayMs: Long?
+        get() = if (isDominantSpeakerPending) {
+            maxOf(
+                dominantSpeakerTimestamp + dominantSpeakerPolicy.minHoldTimeMs,
+                (lastReorderTimestamp ?: 0) + dominantSpeakerPolicy.minReorderIntervalMs,
+            ).minus(clock()).coerceAtLeast(0)
+        } else {
+            null
+        }
+
     init {
         val localParticipant = ParticipantViewState(isLocalParticipant = true)
-        mutableParticipants.add(localParticipant)
+        participants[null] = localParticipant
+        participantOrder.add(null)
         primaryParticipant = localParticipant
     }
 
+    fun batch(mutations: ParticipantManager.() -> Unit) {
+        batchDepth++
+        try {
+            mutations()
+        } finally {
+            batchDepth--
+            if (batchDepth == 0 && isPrimaryParticipantStale) {
+                updatePrimaryParticipant()
+            }
+        }
+    }
+
     fun addParticipant(participantViewState: ParticipantViewState) {
         Timber.d("Adding participant: %s", participantViewState)
-        mutableParticipants.add(participantViewState)
+        if (participants.put(participantViewState.sid, participantViewState) == null) {
+            participantOrder.add(participantViewState.sid)
+        }
         updatePrimaryParticipant()
     }
 
     fun updateLocalParticipantVideoTrack(videoTrack: VideoTrackViewState?) =
-        mutableParticipants.find { it.isLocalParticipant }?.copy(
+        participants[localParticipantKey]?.copy(
             videoTrack = videoTrack,
         )?.let { updateLocalParticipant(it) }
 
     fun updateLocalParticipantSid(sid: String) =
-        mutableParticipants.find { it.isLocalParticipant }?.copy(
+        participants[localParticipantKey]?.copy(
             sid = sid,
         )?.let { updateLocalParticipant(it) }
 
-    fun updateParticipant(
-        participantViewState: ParticipantViewState,
-        participantMatchPredicate: (ParticipantViewState) -> Boolean = {
-            it.sid == participantViewState.sid
-        },
-    ) {
-        mutableParticipants.indexOfFirst(participantMatchPredicate).let { index ->
-            if (index > -1) {
-                Timber.d("Updating participant: %s", participantViewState)
-                mutableParticipants[index] = participantViewState
-                updatePrimaryParticipant()
-            }
+    fun updateParticipant(participantViewState: ParticipantViewState) {
+        val participant = participants[participantViewState.sid]
+        if (participant != null && participant != participantViewState) {
+            Timber.d("Updating participant: %s", participantViewState)
+            participants[participantViewState.sid] = participantViewState
+            updatePrimaryParticipant()
         }
     }
 
     fun removeParticipant(sid: String) {
         Timber.d("Removing participant: %s", sid)
-        mutableParticipants.removeAll { it.sid == sid }
-        updatePrimaryParticipant()
+        if (participants.remove(sid) != null) {
+            participantOrder.remove(sid)
+            updatePrimaryParticipant()
+        }
     }
 
-    fun getParticipant(sid: String): ParticipantViewState? = mutableParticipants.find { it.sid == sid }
+    fun getParticipant(sid: String): ParticipantViewState? = participants[sid]
 
     fun updateNetworkQuality(sid: String, networkQualityLevel: NetworkQualityLevel) {
         getParticipant(sid)?.copy(networkQualityLevel = networkQualityLevel)?.let {
@@ -63,14 +125,20 @@ class ParticipantManager {
         }
     }
 
+    fun updateQoeScore(sid: String, qoeScore: QoeScore?) {
+        getParticipant(sid)?.takeIf { it.qoeScore != qoeScore }?.copy(qoeScore = qoeScore)?.let {
+            updateParticipant(it)
+        }
+    }
+
     fun updateParticipantVideoTrack(sid: String, videoTrack: VideoTrackViewState?) {
-        mutableParticipants.find { it.sid == sid }?.copy(
+        getParticipant(sid)?.copy(
             videoTrack = videoTrack,
         )?.let { updateParticipant(it) }
     }
 
     fun updateParticipantScreenTrack(sid: String, screenTrack: VideoTrackViewState?) {
-        mutableParticipants.find { it.sid == sid }?.copy(
+        getParticipant(sid)?.copy(
             screenTrack = screenTrack,
         )?.let { updateParticipant(it) }
     }
@@ -81,8 +149,8 @@ class ParticipantManager {
         }
     }
 
-    fun changePinnedParticipant(sid: String) {
-        val existingPin = mutableParticipants.find { it.isPinned }?.copy(
+    fun changePinnedParticipant(sid: String) = batch {
+        val existingPin = findParticipant { it.isPinned }?.copy(
             isPinned = false,
         )
         existingPin?.let { updateParticipant(it) }
@@ -94,56 +162,139 @@ class ParticipantManager {
         }
     }
 
-    fun changeDominantSpeaker(newDominantSpeakerSid: String?) {
+    fun changeDominantSpeaker(newDominantSpeakerSid: String?) = batch {
         Timber.d("new dominant speaker with sid: %s", newDominantSpeakerSid)
-        newDominantSpeakerSid?.let { _ ->
-            clearDominantSpeaker()
+        val timestamp = if (dominantSpeakerPolicy.isImmediate) 0 else clock()
+        isDominantSpeakerPending = false
+        pendingDominantSpeakerSid = null
+
+        if (newDominantSpeakerSid != dominantSpeakerSid) {
+            if (isDominantSpeakerHeld(timestamp)) {
+                Timber.d("Holding dominant speaker with sid: %s", dominantSpeakerSid)
+                suppressedDominantSpeakerChanges++
+                deferDominantSpeaker(newDominantSpeakerSid)
+                return@batch
+            }
+            dominantSpeakerSid = newDominantSpeakerSid
+            dominantSpeakerTimestamp = timestamp
+        }
 
-            getParticipant(newDominantSpeakerSid)?.copy(
-                isDominantSpeaker = true,
-            )?.let { moveDominantSpeakerToTop(it) }
-        } ?: run {
-            clearDominantSpeaker()
+        clearDominantSpeaker(newDominantSpeakerSid)
+        newDominantSpeakerSid?.let { getParticipant(it) }?.let { dominantSpeaker ->
+            updateParticipant(dominantSpeaker.copy(isDominantSpeaker = true))
+            moveDominantSpeakerToTop(dominantSpeaker.sid, timestamp)
         }
     }
 
-    internal fun updateLocalParticipant(participantViewState: ParticipantViewState) =
-        updateParticipant(participantViewState) { it.isLocalParticipant }
+    fun applyPendingDominantSpeaker() {
+        if (isDominantSpeakerPending) changeDominantSpeaker(pendingDominantSpeakerSid)
+    }
 
-    private fun moveDominantSpeakerToTop(newDominantSpeaker: ParticipantViewState) {
-        if (mutableParticipants.size > 1) {
-            mutableParticipants.removeAll { it.sid == newDominantSpeaker.sid }
-            mutableParticipants.add(1, newDominantSpeaker)
-            updatePrimaryParticipant()
+    /*
+     * Replaces the local participant, which is re-keyed in place if its sid changed.
+     */
+    internal fun updateLocalParticipant(participantViewState: ParticipantViewState) {
+        val key = localParticipantKey
+        if (!participants.containsKey(key)) return
+        Timber.d("Updating local participant: %s", participantViewState)
+        val newKey = participantViewState.sid
+        if (newKey != key) {
+            participants.remove(key)
+            participantOrder[participantOrder.indexOf(key)] = newKey
+            localParticipantKey = newKey
         }
+        participants[newKey] = participantViewState
+        updatePrimaryParticipant()
     }
 
-    private fun clearDominantSpeaker() {
-        mutableParticipants.find { it.isDominantSpeaker }?.copy(
+    private fun isDominantSpeakerHeld(timestamp: Long) =
+        dominantSpeakerSid?.let { participants.containsKey(it) } == true &&
+            timestamp - dominantSpeakerTimestamp < dominantSpeakerPolicy.minHoldTimeMs
+
+    private fun deferDominantSpeaker(sid: String?) {
+        isDominantSpeakerPending = true
+        pendingDominantSpeakerSid = sid
+    }
+
+    private fun moveDominantSpeakerToTop(sid: String?, timestamp: Long) {
+        val index = participantOrder.indexOf(sid)
+        if (index <= 1) return
+        if (index <= dominantSpeakerPolicy.stickyThumbnailCount) {
+            suppressedReorders++
+            return
+        }
+        val lastReorderTimestamp = lastReorderTimestamp
+        if (lastReorderTimestamp != null &&
+            timestamp - lastReorderTimestamp < dominantSpeakerPolicy.minReorderIntervalMs
+        ) {
+            suppressedReorders++
+            deferDominantSpeaker(sid)
+            return
+        }
+        participantOrder.removeAt(index)
+        participantOrder.add(1, sid)
+        this.lastReorderTimestamp = timestamp
+        updatePrimaryParticipant()
+    }
+
+    private fun clearDominantSpeaker(newDominantSpeakerSid: String?) {
+        findParticipant { it.isDominantSpeaker && it.sid != newDominantSpeakerSid }?.copy(
             isDominantSpeaker = false,
         )?.let { updateParticipant(it) }
     }
 
     fun clearRemoteParticipants() {
-        mutableParticipants.removeAll { !it.isLocalParticipant }
+        dominantSpeakerSid = null
+        lastReorderTimestamp = null
+        isDominantSpeakerPending = false
+        pendingDominantSpeakerSid = null
+        participantOrder.removeAll { key ->
+            val isRemote = !participants.getValue(key).isLocalParticipant
+            if (isRemote) participants.remove(key)
+            isRemote
+        }
         updatePrimaryParticipant()
     }
 
+    private fun findParticipant(predicate: (ParticipantViewState) -> Boolean): ParticipantViewState? {
+        for (key in participantOrder) {
+            val participant = participants.getValue(key)
+            if (predicate(participant)) return participant
+        }
+        return null
+    }
+
     private fun updatePrimaryParticipant() {
+        thumbnailSnapshot = null
+        if (batchDepth > 0) {
+            isPrimaryParticipantStale = true
+            return
+        }
+        isPrimaryParticipantStale = false
         primaryParticipant = retrievePrimaryParticipant()
-        Timber.d("Participant Cache: $mutableParticipants")
-        Timber.d("Primary Participant: $primaryParticipant")
+        Timber.d("Participant Cache: %s", participants)
+        Timber.d("Primary Participant: %s", primaryParticipant)
     }
 
     private fun retrievePrimaryParticipant(): ParticipantViewState =
         determinePrimaryParticipant().apply { setTrackPriority(this) }
 
+    /* Pinned, then screen sharing, then dominant speaker, then the first remote participant. */
     private fun determinePrimaryParticipant(): ParticipantViewState {
-        return mutableParticipants.find { it.isPinned }
-            ?: mutableParticipants.find { it.isScreenSharing }
-            ?: mutableParticipants.find { it.isDominantSpeaker }
-            ?: mutableParticipants.find { !it.isLocalParticipant }
-            ?: mutableParticipants[0] // local participant
+        var screenSharing: ParticipantViewState? = null
+        var dominantSpeaker: ParticipantViewState? = null
+        var firstRemote: ParticipantViewState? = null
+        for (key in participantOrder) {
+            val participant = participants.getValue(key)
+            if (participant.isPinned) return participant
+            if (screenSharing == null && participant.isScreenSharing) screenSharing = participant
+            if (dominantSpeaker == null && participant.isDominantSpeaker) dominantSpeaker = participant
+            if (firstRemote == null && !participant.isLocalParticipant) firstRemote = participant
+        }
+        return screenSharing
+            ?: dominantSpeaker
+            ?: firstRemote
+            ?: participants.getValue(participantOrder[0]) // local participant
     }
 
     private fun setTrackPriority(participant: ParticipantViewState) {
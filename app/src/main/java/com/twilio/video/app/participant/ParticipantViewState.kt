@@ -4,6 +4,7 @@ import com.twilio.video.NetworkQualityLevel
 import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_UNKNOWN
 import com.twilio.video.Participant
 import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.app.sdk.QoeScore
 import com.twilio.video.app.sdk.VideoTrackViewState
 
 data class ParticipantViewState(
@@ -17,6 +18,7 @@ data class ParticipantViewState(
     val isDominantSpeaker: Boolean = false,
     val isLocalParticipant: Boolean = false,
     val networkQualityLevel: NetworkQualityLevel = NETWORK_QUALITY_LEVEL_UNKNOWN,
+    val qoeScore: QoeScore? = null,
 ) {
     val isScreenSharing: Boolean get() = screenTrack != null
 
@@ -77,7 +77,10 @@ class LocalParticipantManager(
     private var isAudioMuted = false
     private var isVideoMuted = false
     private var isVideoProcessorPaused = false
-    internal val localVideoTrackNames: MutableMap<String, String> = HashMap()
+    /* Replaced on every change, so the stats can publish it as it is. */
+    @Volatile
+    internal var localVideoTrackNames: Map<String, String> = emptyMap()
+        private set
 
     fun onResume() {
         if (!isAudioMuted) setupLocalAudioTrack()
@@ -172,8 +175,8 @@ class LocalParticipantManager(
                 name = SCREEN_TRACK_NAME,
             )
             screenVideoTrack?.let { screenVideoTrack ->
-                localVideoTrackNames[screenVideoTrack.name] =
-                    context.getString(R.string.screen_video_track)
+                localVideoTrackNames = localVideoTrackNames +
+                    (screenVideoTrack.name to context.getString(R.string.screen_video_track))
                 localParticipant?.publishTrack(
                     screenVideoTrack,
                     LocalTrackPublicationOptions(TrackPriority.HIGH),
@@ -186,7 +189,7 @@ class LocalParticipantManager(
         screenVideoTrack?.let { screenVideoTrack ->
             localParticipant?.unpublishTrack(screenVideoTrack)
             screenVideoTrack.release()
-            localVideoTrackNames.remove(screenVideoTrack.name)
+            localVideoTrackNames = localVideoTrackNames - screenVideoTrack.name
             this.screenVideoTrack = null
         }
     }
@@ -280,7 +283,8 @@ class LocalParticipantManager(
 
         // publish track
         cameraVideoTrack?.let { cameraVideoTrack ->
-            localVideoTrackNames[cameraVideoTrack.name] = context.getString(R.string.camera_video_track)
+            localVideoTrackNames = localVideoTrackNames +
+                (cameraVideoTrack.name to context.getString(R.string.camera_video_track))
             publishCameraTrack(cameraVideoTrack)
         } ?: run {
             Timber.e(RuntimeException(), "Failed to create the local camera video track")
@@ -290,7 +294,7 @@ class LocalParticipantManager(
     private fun removeCameraTrack() {
         cameraVideoTrack?.let { cameraVideoTrack ->
             unpublishTrack(cameraVideoTrack)
-            localVideoTrackNames.remove(cameraVideoTrack.name)
+            localVideoTrackNames = localVideoTrackNames - cameraVideoTrack.name
             cameraVideoTrack.release()
             this.cameraVideoTrack = null
         }
@@ -0,0 +1,193 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.StatsReport
+import kotlin.math.ln
+import kotlin.math.roundToInt
+import kotlin.math.sqrt
+
+private const val MIN_SCORE = 1f
+private const val MAX_MOS = 4.5f
+private const val MAX_VIDEO_SCORE = 5f
+
+/* E-model (ITU-T G.107) defaults */
+private const val DEFAULT_R_FACTOR = 93.2
+private const val CODEC_DELAY_MS = 10.0
+private const val DELAY_THRESHOLD_MS = 160.0
+
+/* Video scores are relative to 720p at 30 fps, resolutions below 160x90 score zero */
+private const val REFERENCE_PIXELS = 1280.0 * 720.0
+private const val MIN_PIXELS = 160.0 * 90.0
+private const val REFERENCE_FRAME_RATE = 30.0
+private const val FREEZE_RATIO_SMOOTHING = 0.1
+
+/*
+ * Turns the raw counters of the stats reports into one score per track: an estimated MOS for audio
+ * tracks from jitter, packet loss, round trip time and codec, and a video score from resolution,
+ * frame rate stability and the ratio of ticks the video was frozen. Remote video tracks that are
+ * switched off, by the server or by the app, get no video score and keep their freeze ratio, since
+ * not receiving frames is expected then. Local tracks are scored for the local participant.
+ *
+ * The scores are gathered in the same map every tick. estimate returns a copy when they changed and
+ * the previously returned map otherwise, so a caller can hand it out and skip unchanged ticks.
+ *
+ * Only RoomManager.sendStatsUpdate calls estimate, and the StatsScheduler never runs two of those
+ * at once, so the estimator is not locked.
+ */
+class QoeEstimator(
+    private val isSwitchedOff: (trackSid: String) -> Boolean = { false },
+) {
+
+    private val freezeRatios = HashMap<String, Double>()
+    private val trackScores = HashMap<String, TrackQoeScore>()
+    private val seenTracks = HashSet<String>()
+    private var publishedTrackScores: Map<String, TrackQoeScore> = emptyMap()
+
+    fun estimate(
+        statsReports: List<StatsReport>,
+        trackRates: Map<String, TrackStatsRates>,
+        remoteTracks: Map<String, RemoteTrackInfo>,
+        localParticipantSid: String?,
+    ): Map<String, TrackQoeScore> {
+        trackScores.clear()
+        seenTracks.clear()
+        var roundTripTime = 0L
+
+        for (report in statsReports) {
+            for (stats in report.localAudioTrackStats) {
+                roundTripTime = maxOf(roundTripTime, stats.roundTripTime)
+                localParticipantSid?.let { sid ->
+                    val mos = audioMos(
+                        stats.jitter,
+                        trackRates[stats.trackSid]?.packetLossPercent ?: 0f,
+                        stats.roundTripTime,
+                        stats.codec,
+                    )
+                    trackScores[stats.trackSid] = TrackQoeScore(sid, QoeScore(audioMos = mos))
+                }
+            }
+            for (stats in report.localVideoTrackStats) {
+                seenTracks.add(stats.trackSid)
+                localParticipantSid?.let { sid ->
+                    val score = videoScore(
+                        stats.trackSid,
+                        stats.dimensions.width,
+                        stats.dimensions.height,
+                        stats.frameRate,
+                        trackRates[stats.trackSid]?.frameRateVariance ?: 0f,
+                    )
+                    trackScores[stats.trackSid] = TrackQoeScore(sid, QoeScore(videoScore = score))
+                }
+            }
+        }
+
+        // Remote track stats have no round trip time, the one of the local tracks is used instead
+        for (report in statsReports) {
+            for (stats in report.remoteAudioTrackStats) {
+                val sid = remoteTracks[stats.trackSid]?.participantSid ?: continue
+                val mos = audioMos(
+                    stats.jitter,
+                    trackRates[stats.trackSid]?.packetLossPercent ?: 0f,
+                    roundTripTime,
+                    stats.codec,
+                )
+                trackScores[stats.trackSid] = TrackQoeScore(sid, QoeScore(audioMos = mos))
+            }
+            for (stats in report.remoteVideoTrackStats) {
+                seenTracks.add(stats.trackSid)
+                if (isSwitchedOff(stats.trackSid)) continue
+                val sid = remoteTracks[stats.trackSid]?.participantSid ?: continue
+                val score = videoScore(
+                    stats.trackSid,
+                    stats.dimensions.width,
+                    stats.dimensions.height,
+                    stats.frameRate,
+                    trackRates[stats.trackSid]?.frameRateVariance ?: 0f,
+                )
+                trackScores[stats.trackSid] = TrackQoeScore(sid, QoeScore(videoScore = score))
+            }
+        }
+
+        freezeRatios.keys.retainAll(seenTracks)
+        if (trackScores != publishedTrackScores) publishedTrackScores = HashMap(trackScores)
+        return publishedTrackScores
+    }
+
+    /*
+     * Simplified E-model: the R factor is reduced by the delay impairment of the one way latency
+     * and the effective equipment impairment of the codec under packet loss, then mapped to a MOS.
+     */
+    internal fun audioMos(
+        jitter: Int,
+        packetLossPercent: Float,
+        roundTripTime: Long,
+        codec: String?,
+    ): Float {
+        val impairment = CodecImpairment.from(codec)
+        val effectiveLatency = roundTripTime / 2.0 + jitter * 2.0 + CODEC_DELAY_MS
+        val delayImpairment = if (effectiveLatency < DELAY_THRESHOLD_MS) {
+            effectiveLatency / 40
+        } else {
+            (effectiveLatency - 120) / 10
+        }
+        val equipmentImpairment = impairment.ie + (95 - impairment.ie) *
+            packetLossPercent / (packetLossPercent + impairment.bpl)
+        val r = DEFAULT_R_FACTOR - delayImpairment - equipmentImpairment
+        val mos = when {
+            r <= 0 -> MIN_SCORE.toDouble()
+            r >= 100 -> MAX_MOS.toDouble()
+            else -> 1 + 0.035 * r + 7.0e-6 * r * (r - 60) * (100 - r)
+        }
+        return round(mos.toFloat().coerceIn(MIN_SCORE, MAX_MOS))
+    }
+
+    /*
+     * Weighs resolution and frame rate equally. The frame rate is reduced by its standard
+     * deviation and the whole score by the smoothed ratio of ticks the video was frozen.
+     */
+    internal fun videoScore(
+        trackSid: String,
+        width: Int,
+        height: Int,
+        frameRate: Int,
+        frameRateVariance: Float,
+    ): Float {
+        val isFrozen = frameRate == 0
+        val previousFreezeRatio = freezeRatios[trackSid] ?: 0.0
+        val freezeRatio = previousFreezeRatio +
+            FREEZE_RATIO_SMOOTHING * ((if (isFrozen) 1.0 else 0.0) - previousFreezeRatio)
+        freezeRatios[trackSid] = freezeRatio
+
+        val pixels = width.toDouble() * height
+        val resolutionQuality = if (pixels <= MIN_PIXELS) {
+            0.0
+        } else {
+            (ln(pixels / MIN_PIXELS) / ln(REFERENCE_PIXELS / MIN_PIXELS)).coerceIn(0.0, 1.0)
+        }
+        val frameRateQuality =
+            ((frameRate - sqrt(frameRateVariance.toDouble())) / REFERENCE_FRAME_RATE).coerceIn(0.0, 1.0)
+        val quality = (resolutionQuality + frameRateQuality) / 2 * (1 - freezeRatio)
+        return round((MIN_SCORE + (MAX_VIDEO_SCORE - MIN_SCORE) * quality).toFloat())
+    }
+
+    /* Scores are rounded to one decimal so they only change when the difference is noticeable. */
+    private fun round(score: Float) = (score * 10).roundToInt() / 10f
+
+    /*
+     * Equipment impairment factor (Ie) and packet loss robustness (Bpl) of the codecs the SDK
+     * negotiates, after ITU-T G.113 where available.
+     */
+    private enum class CodecImpairment(val ie: Double, val bpl: Double) {
+        OPUS(0.0, 20.0),
+        PCMU(0.0, 25.1),
+        PCMA(0.0, 25.1),
+        G722(13.0, 20.0),
+        ISAC(11.0, 15.0),
+        UNKNOWN(10.0, 15.0),
+        ;
+
+        companion object {
+            fun from(codec: String?) =
+                values().firstOrNull { it.name.equals(codec, ignoreCase = true) } ?: UNKNOWN
+        }
+    }
+}
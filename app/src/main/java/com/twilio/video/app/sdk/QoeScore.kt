@@ -0,0 +1,39 @@
+package com.twilio.video.app.sdk
+
+/*
+ * Estimated quality of experience of a participant on a 1 to 5 scale. audioMos is the E-model
+ * mean opinion score of the worst audio track and videoScore the score of the worst video track.
+ */
+data class QoeScore(
+    val audioMos: Float? = null,
+    val videoScore: Float? = null,
+) {
+    val overall: Float?
+        get() = if (audioMos != null && videoScore != null) {
+            minOf(audioMos, videoScore)
+        } else {
+            audioMos ?: videoScore
+        }
+}
+
+/* Score of a single track, only audioMos is set for audio tracks and only videoScore for video tracks. */
+data class TrackQoeScore(
+    val participantSid: String,
+    val qoeScore: QoeScore,
+)
+
+/* The score of a participant is the worst of the scores of its tracks. */
+fun Map<String, TrackQoeScore>.toParticipantScores(): Map<String, QoeScore> {
+    val participantScores = HashMap<String, QoeScore>()
+    for (trackScore in values) {
+        val existing = participantScores[trackScore.participantSid]
+        participantScores[trackScore.participantSid] = QoeScore(
+            minOfNullable(existing?.audioMos, trackScore.qoeScore.audioMos),
+            minOfNullable(existing?.videoScore, trackScore.qoeScore.videoScore),
+        )
+    }
+    return participantScores
+}
+
+private fun minOfNullable(a: Float?, b: Float?) =
+    if (a != null && b != null) minOf(a, b) else a ?: b
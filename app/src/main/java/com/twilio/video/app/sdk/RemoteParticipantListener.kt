@@ -25,6 +25,7 @@ class RemoteParticipantListener(private val roomManager: RoomManager) : RemotePa
             remoteVideoTrack.sid,
         )
 
+        roomManager.videoFreezeDetector.setSwitchedOff(remoteVideoTrack.sid, true)
         roomManager.sendRoomEvent(
             TrackSwitchOff(
                 remoteParticipant.sid,
@@ -41,6 +42,7 @@ class RemoteParticipantListener(private val roomManager: RoomManager) : RemotePa
             remoteVideoTrack.sid,
         )
 
+        roomManager.videoFreezeDetector.setSwitchedOff(remoteVideoTrack.sid, false)
         roomManager.sendRoomEvent(
             TrackSwitchOff(
                 remoteParticipant.sid,
@@ -57,6 +59,7 @@ class RemoteParticipantListener(private val roomManager: RoomManager) : RemotePa
             remoteVideoTrack.sid,
         )
 
+        roomManager.remoteTrackIndex.add(remoteParticipant, remoteVideoTrack.sid, false, remoteVideoTrack.name)
         if (remoteVideoTrack.name.contains(SCREEN_TRACK_NAME)) {
             roomManager.sendRoomEvent(ScreenTrackUpdated(remoteParticipant.sid, remoteVideoTrack))
         } else
@@ -70,6 +73,7 @@ class RemoteParticipantListener(private val roomManager: RoomManager) : RemotePa
             remoteVideoTrack.sid,
         )
 
+        roomManager.remoteTrackIndex.remove(remoteVideoTrack.sid)
         if (remoteVideoTrack.name.contains(SCREEN_TRACK_NAME)) {
             roomManager.sendRoomEvent(ScreenTrackUpdated(remoteParticipant.sid, null))
         } else
@@ -98,6 +102,7 @@ class RemoteParticipantListener(private val roomManager: RoomManager) : RemotePa
             remoteAudioTrack.sid,
         )
 
+        roomManager.remoteTrackIndex.add(remoteParticipant, remoteAudioTrack.sid, true, remoteAudioTrack.name)
         roomManager.sendRoomEvent(MuteRemoteParticipant(remoteParticipant.sid, false))
     }
 
@@ -108,6 +113,7 @@ class RemoteParticipantListener(private val roomManager: RoomManager) : RemotePa
             remoteAudioTrack.sid,
         )
 
+        roomManager.remoteTrackIndex.remove(remoteAudioTrack.sid)
         roomManager.sendRoomEvent(MuteRemoteParticipant(remoteParticipant.sid, true))
     }
 
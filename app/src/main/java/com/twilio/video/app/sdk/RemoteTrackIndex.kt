@@ -0,0 +1,82 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.RemoteParticipant
+
+data class RemoteTrackInfo(
+    val participantSid: String,
+    val identity: String,
+    val isAudioTrack: Boolean,
+    val trackName: String,
+)
+
+/*
+ * Maps the sid of every subscribed remote track to its participant, so stats can be attributed
+ * without walking all participants and publications on every tick. Kept up to date from the
+ * subscription callbacks on the main thread and read by RoomManager.sendStatsUpdate on the room
+ * dispatcher.
+ *
+ * remoteTracks is a snapshot that is replaced after every change, so the room dispatcher reads it
+ * without locking and it can be published with the RoomStats without ever changing afterwards.
+ * Subscriptions change rarely compared to stats ticks.
+ */
+class RemoteTrackIndex {
+
+    private val tracks = HashMap<String, RemoteTrackInfo>()
+
+    @Volatile
+    var remoteTracks: Map<String, RemoteTrackInfo> = emptyMap()
+        private set
+
+    @Synchronized
+    fun add(remoteParticipant: RemoteParticipant, trackSid: String, isAudioTrack: Boolean, trackName: String) {
+        put(remoteParticipant, trackSid, isAudioTrack, trackName)
+        publish()
+    }
+
+    /* Indexes the tracks the participant was already subscribed to before its listener was set. */
+    @Synchronized
+    fun addAll(remoteParticipant: RemoteParticipant) {
+        for (publication in remoteParticipant.remoteAudioTracks) {
+            if (publication.isTrackSubscribed) {
+                put(remoteParticipant, publication.trackSid, true, publication.trackName)
+            }
+        }
+        for (publication in remoteParticipant.remoteVideoTracks) {
+            if (publication.isTrackSubscribed) {
+                put(remoteParticipant, publication.trackSid, false, publication.trackName)
+            }
+        }
+        publish()
+    }
+
+    @Synchronized
+    fun remove(trackSid: String) {
+        if (tracks.remove(trackSid) != null) publish()
+    }
+
+    @Synchronized
+    fun removeAll(participantSid: String) {
+        if (tracks.values.removeAll { it.participantSid == participantSid }) publish()
+    }
+
+    operator fun get(trackSid: String): RemoteTrackInfo? = remoteTracks[trackSid]
+
+    @Synchronized
+    fun clear() {
+        tracks.clear()
+        publish()
+    }
+
+    private fun put(remoteParticipant: RemoteParticipant, trackSid: String, isAudioTrack: Boolean, trackName: String) {
+        tracks[trackSid] = RemoteTrackInfo(
+            remoteParticipant.sid,
+            remoteParticipant.identity,
+            isAudioTrack,
+            trackName,
+        )
+    }
+
+    private fun publish() {
+        remoteTracks = HashMap(tracks)
+    }
+}
@@ -0,0 +1,137 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.app.ui.room.RoomEvent
+import com.twilio.video.app.ui.room.RoomEvent.QoeScoresChanged
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.NetworkQualityLevelChange
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.launch
+import timber.log.Timber
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+const val ROOM_EVENT_QUEUE_CAPACITY = 256
+
+data class RoomEventDispatcherMetrics(
+    val queueDepth: Int,
+    val maxQueueDepth: Int,
+    val dispatchedEvents: Long,
+    val droppedEvents: Long,
+    val averageLatencyMicros: Long,
+    val maxLatencyMicros: Long,
+)
+
+/*
+ * Delivers RoomEvents in the order they were sent through a channel that is drained by a single
+ * coroutine of coroutineScope, which RoomManager runs on a single lane view of Dispatchers.IO that
+ * nothing else uses, so SDK callbacks never suspend and a slow collector can not reorder events.
+ *
+ * Overflow policy: capacity bounds the status events, those that the next one of their kind and
+ * participant supersedes (network quality per participant, QoE scores). From that depth on, a
+ * status event replaces the one of the same kind and participant that is still queued instead of
+ * being queued again, so they never hold more than one slot per kind and participant. The replaced
+ * event is counted as dropped and passed to onReplaced, and the replacement keeps its place in the
+ * queue. Every other event, including freeze notifications, is always queued: they are sent from
+ * SDK callbacks that must not block, and dropping one would lose a participant, connection or
+ * freeze change. Their number follows the changes of the room itself, not a polling rate.
+ *
+ * Events are queued and dispatched with the trace of their send, so a replaced event hands over its
+ * place in the queue but not its trace.
+ */
+class RoomEventDispatcher(
+    coroutineScope: CoroutineScope,
+    private val capacity: Int = ROOM_EVENT_QUEUE_CAPACITY,
+    private val clock: () -> Long = System::nanoTime,
+    private val onReplaced: (TracedRoomEvent) -> Unit = {},
+    private val dispatch: suspend (TracedRoomEvent) -> Unit,
+) {
+
+    private val queue = Channel<QueuedRoomEvent>(Channel.UNLIMITED)
+    private val queueDepth = AtomicInteger()
+    private val maxQueueDepth = AtomicInteger()
+    private val dispatchedEvents = AtomicLong()
+    private val droppedEvents = AtomicLong()
+    private val totalLatencyNanos = AtomicLong()
+    private val maxLatencyNanos = AtomicLong()
+    private val replaceableEvents = HashMap<Any, QueuedRoomEvent>()
+
+    val metrics: RoomEventDispatcherMetrics
+        get() {
+            val dispatchedEvents = dispatchedEvents.get()
+            return RoomEventDispatcherMetrics(
+                queueDepth.get(),
+                maxQueueDepth.get(),
+                dispatchedEvents,
+                droppedEvents.get(),
+                if (dispatchedEvents > 0) totalLatencyNanos.get() / dispatchedEvents / 1000 else 0,
+                maxLatencyNanos.get() / 1000,
+            )
+        }
+
+    init {
+        coroutineScope.launch {
+            for (queuedRoomEvent in queue) {
+                val tracedRoomEvent = synchronized(replaceableEvents) {
+                    queuedRoomEvent.tracedRoomEvent.roomEvent.replacementKey()?.let { key ->
+                        replaceableEvents.remove(key, queuedRoomEvent)
+                    }
+                    queuedRoomEvent.tracedRoomEvent
+                }
+                queueDepth.decrementAndGet()
+                dispatch(tracedRoomEvent)
+                val latencyNanos = clock() - queuedRoomEvent.timestamp
+                dispatchedEvents.incrementAndGet()
+                totalLatencyNanos.addAndGet(latencyNanos)
+                maxLatencyNanos.accumulateAndGet(latencyNanos, ::maxOf)
+            }
+        }
+    }
+
+    fun send(roomEvent: RoomEvent, trace: RoomEventTrace? = null) {
+        val tracedRoomEvent = TracedRoomEvent(roomEvent, trace)
+        val replacementKey = roomEvent.replacementKey()
+        if (replacementKey == null) {
+            enqueue(QueuedRoomEvent(tracedRoomEvent, clock()))
+            return
+        }
+        val replacedRoomEvent = synchronized(replaceableEvents) {
+            val queuedRoomEvent = replaceableEvents[replacementKey]
+            if (queuedRoomEvent == null || queueDepth.get() < capacity) {
+                val newQueuedRoomEvent = QueuedRoomEvent(tracedRoomEvent, clock())
+                replaceableEvents[replacementKey] = newQueuedRoomEvent
+                enqueue(newQueuedRoomEvent)
+                return
+            }
+            queuedRoomEvent.tracedRoomEvent.also { queuedRoomEvent.tracedRoomEvent = tracedRoomEvent }
+        }
+        droppedEvents.incrementAndGet()
+        Timber.w(
+            "Replacing %s with %s, %d room events are queued",
+            replacedRoomEvent.roomEvent,
+            roomEvent,
+            queueDepth.get(),
+        )
+        onReplaced(replacedRoomEvent)
+    }
+
+    fun resetMetrics() {
+        maxQueueDepth.set(queueDepth.get())
+        dispatchedEvents.set(0)
+        droppedEvents.set(0)
+        totalLatencyNanos.set(0)
+        maxLatencyNanos.set(0)
+    }
+
+    private fun enqueue(queuedRoomEvent: QueuedRoomEvent) {
+        maxQueueDepth.accumulateAndGet(queueDepth.incrementAndGet(), ::maxOf)
+        queue.trySend(queuedRoomEvent)
+    }
+
+    private fun RoomEvent.replacementKey(): Any? = when (this) {
+        is NetworkQualityLevelChange -> NetworkQualityLevelChange::class to sid
+        is QoeScoresChanged -> QoeScoresChanged::class
+        else -> null
+    }
+
+    private class QueuedRoomEvent(var tracedRoomEvent: TracedRoomEvent, val timestamp: Long)
+}
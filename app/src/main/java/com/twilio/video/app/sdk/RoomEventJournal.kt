@@ -0,0 +1,373 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.LocalParticipant
+import com.twilio.video.NetworkQualityLevel
+import com.twilio.video.Participant
+import com.twilio.video.Room
+import com.twilio.video.VideoTrack
+import com.twilio.video.app.data.api.AuthServiceError
+import com.twilio.video.app.ui.room.RoomEvent
+import com.twilio.video.app.ui.room.RoomEvent.ConnectFailure
+import com.twilio.video.app.ui.room.RoomEvent.Connected
+import com.twilio.video.app.ui.room.RoomEvent.Connecting
+import com.twilio.video.app.ui.room.RoomEvent.Disconnected
+import com.twilio.video.app.ui.room.RoomEvent.DominantSpeakerChanged
+import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent
+import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.AudioDisabled
+import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.AudioEnabled
+import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.AudioOff
+import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.AudioOn
+import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.ScreenCaptureOff
+import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.ScreenCaptureOn
+import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.VideoDisabled
+import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.VideoEnabled
+import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.VirtualBackgroundPaused
+import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.VirtualBackgroundResumed
+import com.twilio.video.app.ui.room.RoomEvent.MaxParticipantFailure
+import com.twilio.video.app.ui.room.RoomEvent.QoeScoresChanged
+import com.twilio.video.app.ui.room.RoomEvent.RecordingStarted
+import com.twilio.video.app.ui.room.RoomEvent.RecordingStopped
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.MuteRemoteParticipant
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.NetworkQualityLevelChange
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.RemoteParticipantConnected
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.RemoteParticipantDisconnected
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.ScreenTrackUpdated
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.TrackSwitchOff
+import com.twilio.video.app.ui.room.RoomEvent.TokenError
+import com.twilio.video.app.ui.room.RoomEvent.Transcription
+import com.twilio.video.app.ui.room.RoomEvent.VideoFreezeEnded
+import com.twilio.video.app.ui.room.RoomEvent.VideoFreezeStarted
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.launch
+import timber.log.Timber
+import java.io.BufferedReader
+import java.io.BufferedWriter
+import java.io.Closeable
+import java.io.IOException
+import java.io.Reader
+import java.io.Writer
+import java.util.concurrent.atomic.AtomicInteger
+
+const val ROOM_EVENT_JOURNAL_HEADER = "# room event journal v3"
+const val ROOM_EVENT_JOURNAL_QUEUE_CAPACITY = 1024
+private const val STATS_TICK = "@StatsTick"
+private val UNSAFE_FILE_NAME_CHARACTERS = Regex("[^A-Za-z0-9._-]")
+
+/* What the view layer reads from a Participant, so it can be rebuilt without the SDK. */
+data class ParticipantSnapshot(
+    val sid: String,
+    val identity: String?,
+    val networkQualityLevel: NetworkQualityLevel,
+    val hasVideoTrack: Boolean,
+    val hasAudioTrack: Boolean,
+    val isLocalParticipant: Boolean,
+)
+
+data class RoomEventJournalEntry(val timestampMs: Long, val roomEvent: RoomEvent)
+
+data class StatsTickJournalEntry(val timestampMs: Long, val trackRates: Map<String, TrackStatsRates>)
+
+/* The room name is chosen by the user, anything but letters, digits, '.', '_' and '-' is replaced. */
+fun roomEventJournalFileName(roomName: String, timestamp: Long) =
+    "${roomName.replace(UNSAFE_FILE_NAME_CHARACTERS, "_")}-$timestamp.journal"
+
+/* Stands in for the SDK objects referenced by the events of a journal while it is read back. */
+interface RoomEventJournalObjects {
+    fun room(name: String): Room
+    fun participant(snapshot: ParticipantSnapshot): Participant
+    fun videoTrack(participantSid: String?, name: String): VideoTrack
+}
+
+/*
+ * Writes RoomEvents to a journal, one tab separated line per event that starts with the number of
+ * milliseconds since the previous event and the event name. SDK objects are reduced to the fields
+ * the view layer reads: participants to a ParticipantSnapshot and video tracks to their name.
+ * Stats ticks are written as @StatsTick lines with the rates of every track, the raw StatsReports
+ * can not be rebuilt without the SDK.
+ *
+ * record and recordStatsTick only encode the line and queue it, they never block on the disk or
+ * throw. A single coroutine of coroutineScope opens the writer, writes and flushes every line, so
+ * the journal of a call that ends with a crash is complete up to it. Lines that do not fit in the
+ * queue are dropped and the next line keeps its own timestamp. The first IOException is logged
+ * and stops the recording, the call goes on without a journal.
+ */
+class RoomEventRecorder(
+    coroutineScope: CoroutineScope,
+    private val clock: () -> Long,
+    openWriter: () -> Writer,
+) : Closeable {
+
+    private val lines = Channel<JournalLine>(ROOM_EVENT_JOURNAL_QUEUE_CAPACITY)
+
+    @Volatile
+    private var isFailed = false
+    private val droppedLines = AtomicInteger()
+
+    init {
+        coroutineScope.launch {
+            try {
+                BufferedWriter(openWriter()).use { writer ->
+                    writer.write(ROOM_EVENT_JOURNAL_HEADER)
+                    writer.newLine()
+                    var lastTimestamp: Long? = null
+                    for (line in lines) {
+                        writer.write((line.timestamp - (lastTimestamp ?: line.timestamp)).toString())
+                        lastTimestamp = line.timestamp
+                        line.fields.forEach { field ->
+                            writer.write('\t'.code)
+                            writer.write(escape(field))
+                        }
+                        writer.newLine()
+                        writer.flush()
+                    }
+                }
+            } catch (e: IOException) {
+                Timber.e(e, "Failed to write the room event journal, recording stopped")
+                isFailed = true
+                lines.cancel()
+            }
+        }
+    }
+
+    fun record(roomEvent: RoomEvent) {
+        queue(encode(roomEvent))
+    }
+
+    fun recordStatsTick(trackRates: Map<String, TrackStatsRates>) {
+        queue(listOf(STATS_TICK) + trackRates.flatMap { (trackSid, rates) -> encode(trackSid, rates) })
+    }
+
+    private fun queue(fields: List<String?>) {
+        if (isFailed) return
+        if (lines.trySend(JournalLine(clock(), fields)).isFailure) {
+            Timber.w("Room event journal queue is full, %d lines dropped", droppedLines.incrementAndGet())
+        }
+    }
+
+    /* Lines queued before close are still written, the writer is closed after the last one. */
+    override fun close() {
+        lines.close()
+    }
+
+    private class JournalLine(val timestamp: Long, val fields: List<String?>)
+}
+
+/* Returns the RoomEvents of a journal and passes its stats ticks, in between, to onStatsTick. */
+class RoomEventJournalReader(
+    reader: Reader,
+    private val objects: RoomEventJournalObjects,
+    private val onStatsTick: (StatsTickJournalEntry) -> Unit = {},
+) {
+
+    private val reader = BufferedReader(reader)
+
+    fun read(): List<RoomEventJournalEntry> = reader.useLines { lines ->
+        var timestampMs = 0L
+        lines.filter { it.isNotEmpty() && !it.startsWith("#") }
+            .mapNotNull { line ->
+                val fields = line.split('\t').map(::unescape)
+                timestampMs += fields[0].toLong()
+                if (fields[1] == STATS_TICK) {
+                    onStatsTick(StatsTickJournalEntry(timestampMs, decodeTrackRates(FieldReader(fields, 2))))
+                    null
+                } else {
+                    RoomEventJournalEntry(timestampMs, decode(FieldReader(fields, 1)))
+                }
+            }
+            .toList()
+    }
+
+    private fun decodeTrackRates(fields: FieldReader): Map<String, TrackStatsRates> {
+        val trackRates = LinkedHashMap<String, TrackStatsRates>()
+        while (fields.hasNext()) {
+            trackRates[fields.next()] = TrackStatsRates(
+                fields.next().toLong(),
+                fields.next().toFloat(),
+                fields.next().toFloat(),
+                fields.next().toLong(),
+            )
+        }
+        return trackRates
+    }
+
+    private fun decode(fields: FieldReader): RoomEvent = when (val name = fields.next()) {
+        "Connecting" -> Connecting
+        "Connected" -> {
+            val roomName = fields.next()
+            val participants = ArrayList<Participant>()
+            while (fields.hasNext()) participants.add(objects.participant(fields.nextParticipant()))
+            Connected(participants, objects.room(roomName), roomName)
+        }
+        "Disconnected" -> Disconnected
+        "ConnectFailure" -> ConnectFailure
+        "MaxParticipantFailure" -> MaxParticipantFailure
+        "RecordingStarted" -> RecordingStarted
+        "RecordingStopped" -> RecordingStopped
+        "TokenError" -> TokenError(fields.nextOrNull()?.let { AuthServiceError.valueOf(it) })
+        "DominantSpeakerChanged" -> DominantSpeakerChanged(fields.nextOrNull())
+        "Transcription" -> Transcription(fields.next())
+        "QoeScoresChanged" -> {
+            val trackScores = LinkedHashMap<String, TrackQoeScore>()
+            while (fields.hasNext()) {
+                trackScores[fields.next()] = TrackQoeScore(
+                    fields.next(),
+                    QoeScore(fields.nextOrNull()?.toFloat(), fields.nextOrNull()?.toFloat()),
+                )
+            }
+            QoeScoresChanged(trackScores)
+        }
+        "VideoFreezeStarted" -> VideoFreezeStarted(fields.nextVideoFreeze())
+        "VideoFreezeEnded" -> VideoFreezeEnded(fields.nextVideoFreeze())
+        "RemoteParticipantConnected" ->
+            RemoteParticipantConnected(objects.participant(fields.nextParticipant()))
+        "VideoTrackUpdated" -> {
+            val sid = fields.next()
+            RemoteParticipantEvent.VideoTrackUpdated(sid, fields.nextOrNull()?.let { objects.videoTrack(sid, it) })
+        }
+        "TrackSwitchOff" -> {
+            val sid = fields.next()
+            TrackSwitchOff(sid, objects.videoTrack(sid, fields.next()), fields.next().toBoolean())
+        }
+        "ScreenTrackUpdated" -> {
+            val sid = fields.next()
+            ScreenTrackUpdated(sid, fields.nextOrNull()?.let { objects.videoTrack(sid, it) })
+        }
+        "MuteRemoteParticipant" -> MuteRemoteParticipant(fields.next(), fields.next().toBoolean())
+        "NetworkQualityLevelChange" ->
+            NetworkQualityLevelChange(fields.next(), NetworkQualityLevel.valueOf(fields.next()))
+        "RemoteParticipantDisconnected" -> RemoteParticipantDisconnected(fields.next())
+        "LocalVideoTrackUpdated" ->
+            LocalParticipantEvent.VideoTrackUpdated(fields.nextOrNull()?.let { objects.videoTrack(null, it) })
+        "VideoEnabled" -> VideoEnabled
+        "VideoDisabled" -> VideoDisabled
+        "AudioOn" -> AudioOn
+        "AudioOff" -> AudioOff
+        "AudioEnabled" -> AudioEnabled
+        "AudioDisabled" -> AudioDisabled
+        "ScreenCaptureOn" -> ScreenCaptureOn
+        "ScreenCaptureOff" -> ScreenCaptureOff
+        "VirtualBackgroundResumed" -> VirtualBackgroundResumed
+        "VirtualBackgroundPaused" -> VirtualBackgroundPaused
+        else -> throw IllegalArgumentException("Unknown room event $name")
+    }
+
+    private class FieldReader(private val fields: List<String>, private var index: Int) {
+        fun hasNext() = index < fields.size
+        fun next() = fields[index++]
+        fun nextOrNull() = next().ifEmpty { null }
+
+        fun nextParticipant() = ParticipantSnapshot(
+            next(),
+            nextOrNull(),
+            NetworkQualityLevel.valueOf(next()),
+            next().toBoolean(),
+            next().toBoolean(),
+            next().toBoolean(),
+        )
+
+        fun nextVideoFreeze() = VideoFreeze(
+            next(),
+            nextOrNull(),
+            VideoFreezeCause.valueOf(next()),
+            next().toLong(),
+            next().toLong(),
+            next().toBoolean(),
+        )
+    }
+}
+
+/* Null is written as an empty field, none of the recorded strings are empty when present. */
+private fun encode(roomEvent: RoomEvent): List<String?> = when (roomEvent) {
+    is Connected -> listOf("Connected", roomEvent.roomName) + roomEvent.participants.flatMap(::encode)
+    is TokenError -> listOf("TokenError", roomEvent.serviceError?.name)
+    is DominantSpeakerChanged -> listOf("DominantSpeakerChanged", roomEvent.newDominantSpeakerSid)
+    is Transcription -> listOf("Transcription", roomEvent.text)
+    is QoeScoresChanged -> listOf("QoeScoresChanged") + roomEvent.trackScores.flatMap { (trackSid, trackScore) ->
+        listOf(
+            trackSid,
+            trackScore.participantSid,
+            trackScore.qoeScore.audioMos?.toString(),
+            trackScore.qoeScore.videoScore?.toString(),
+        )
+    }
+    is VideoFreezeStarted -> listOf("VideoFreezeStarted") + encode(roomEvent.videoFreeze)
+    is VideoFreezeEnded -> listOf("VideoFreezeEnded") + encode(roomEvent.videoFreeze)
+    is RemoteParticipantConnected -> listOf("RemoteParticipantConnected") + encode(roomEvent.participant)
+    is RemoteParticipantEvent.VideoTrackUpdated ->
+        listOf("VideoTrackUpdated", roomEvent.sid, roomEvent.videoTrack?.name)
+    is TrackSwitchOff ->
+        listOf("TrackSwitchOff", roomEvent.sid, roomEvent.videoTrack.name, roomEvent.switchOff.toString())
+    is ScreenTrackUpdated -> listOf("ScreenTrackUpdated", roomEvent.sid, roomEvent.screenTrack?.name)
+    is MuteRemoteParticipant -> listOf("MuteRemoteParticipant", roomEvent.sid, roomEvent.mute.toString())
+    is NetworkQualityLevelChange ->
+        listOf("NetworkQualityLevelChange", roomEvent.sid, roomEvent.networkQualityLevel.name)
+    is RemoteParticipantDisconnected -> listOf("RemoteParticipantDisconnected", roomEvent.sid)
+    is LocalParticipantEvent.VideoTrackUpdated -> listOf("LocalVideoTrackUpdated", roomEvent.videoTrack?.name)
+    Connecting, Disconnected, ConnectFailure, MaxParticipantFailure, RecordingStarted, RecordingStopped,
+    VideoEnabled, VideoDisabled, AudioOn, AudioOff, AudioEnabled, AudioDisabled, ScreenCaptureOn,
+    ScreenCaptureOff, VirtualBackgroundResumed, VirtualBackgroundPaused -> listOf(roomEvent.javaClass.simpleName)
+}
+
+private fun encode(participant: Participant) = listOf(
+    participant.sid,
+    participant.identity,
+    participant.networkQualityLevel.name,
+    participant.videoTracks.isNotEmpty().toString(),
+    participant.audioTracks.isNotEmpty().toString(),
+    (participant is LocalParticipant).toString(),
+)
+
+private fun encode(videoFreeze: VideoFreeze) = listOf(
+    videoFreeze.trackSid,
+    videoFreeze.participantSid,
+    videoFreeze.cause.name,
+    videoFreeze.startTimestamp.toString(),
+    videoFreeze.durationMs.toString(),
+    videoFreeze.isOngoing.toString(),
+)
+
+private fun encode(trackSid: String, rates: TrackStatsRates) = listOf(
+    trackSid,
+    rates.bitrateKbps.toString(),
+    rates.packetLossPercent.toString(),
+    rates.frameRateVariance.toString(),
+    rates.roundTripTimeTrend.toString(),
+)
+
+private fun escape(field: String?): String {
+    if (field == null) return ""
+    if (field.none { it == '\\' || it == '\t' || it == '\n' || it == '\r' }) return field
+    return buildString {
+        field.forEach { char ->
+            when (char) {
+                '\\' -> append("\\\\")
+                '\t' -> append("\\t")
+                '\n' -> append("\\n")
+                '\r' -> append("\\r")
+                else -> append(char)
+            }
+        }
+    }
+}
+
+private fun unescape(field: String): String {
+    if ('\\' !in field) return field
+    return buildString {
+        var index = 0
+        while (index < field.length) {
+            val char = field[index++]
+            if (char == '\\' && index < field.length) {
+                when (val escaped = field[index++]) {
+                    't' -> append('\t')
+                    'n' -> append('\n')
+                    'r' -> append('\r')
+                    else -> append(escaped)
+                }
+            } else {
+                append(char)
+            }
+        }
+    }
+}
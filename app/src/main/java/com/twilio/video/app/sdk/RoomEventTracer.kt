@@ -0,0 +1,218 @@
+package com.twilio.video.app.sdk
+
+import android.os.Build
+import android.os.Trace
+import com.twilio.video.app.ui.room.RoomEvent
+import java.util.concurrent.atomic.AtomicInteger
+
+/* Events lost on the way to the view model without being discarded would otherwise pile up. */
+private const val MAX_OUTSTANDING_ROOM_EVENTS = 1024
+
+enum class RoomEventStage { OBSERVED, STATE_UPDATED, BOUND }
+
+class RoomEventTrace internal constructor(
+    internal val name: String,
+    internal val createdAt: Long,
+    internal val cookie: Int,
+) {
+    internal var isStateUpdated = false
+}
+
+/* A RoomEvent on its way to the view model, with the trace of the send that created it. */
+data class TracedRoomEvent(val roomEvent: RoomEvent, val trace: RoomEventTrace? = null)
+
+/*
+ * Measures how long a RoomEvent takes from the SDK callback that created it until it is observed
+ * by the RoomViewModel, folded into the RoomViewState and bound by the RoomActivity. Latencies are
+ * kept in a histogram per event type and stage. The dispatch and render legs of every event are
+ * also emitted as async android.os.Trace sections, so they line up with the frames in a system
+ * trace. created returns a trace for every send, which travels with the event as the token of
+ * that send, so events that are equal or the same object, like AudioOn, are told apart. Traces of
+ * events that are replaced in the dispatcher queue or merged by the coalescer must be passed to
+ * discarded, which ends their dispatch section without recording a latency. Nothing is recorded
+ * while the tracer is disabled.
+ */
+class RoomEventTracer(
+    @Volatile var isEnabled: Boolean = false,
+    private val clock: () -> Long = System::nanoTime,
+    private val isSystemTraceEnabled: Boolean = true,
+) {
+
+    private val outstandingTraces = LinkedHashSet<RoomEventTrace>()
+    private val stateUpdatedTraces = ArrayList<RoomEventTrace>()
+    private val histograms = HashMap<String, Array<LatencyHistogram>>()
+    private val nextCookie = AtomicInteger()
+
+    fun created(roomEvent: RoomEvent): RoomEventTrace? {
+        if (!isEnabled) return null
+        val trace = RoomEventTrace(roomEvent.javaClass.simpleName, clock(), nextCookie.incrementAndGet())
+        synchronized(this) {
+            if (outstandingTraces.size >= MAX_OUTSTANDING_ROOM_EVENTS) endDispatchSections()
+            outstandingTraces.add(trace)
+        }
+        beginAsyncSection("${trace.name} dispatch", trace.cookie)
+        return trace
+    }
+
+    fun discarded(trace: RoomEventTrace?) {
+        if (trace == null || !isEnabled) return
+        if (synchronized(this) { outstandingTraces.remove(trace) }) {
+            endAsyncSection("${trace.name} dispatch", trace.cookie)
+        }
+    }
+
+    /* Returns the traces that were still outstanding, the others were discarded or given up on. */
+    fun observed(traces: List<RoomEventTrace>): List<RoomEventTrace> {
+        if (!isEnabled || traces.isEmpty()) return emptyList()
+        val now = clock()
+        val observedTraces = synchronized(this) {
+            traces.filter { trace ->
+                outstandingTraces.remove(trace).also { if (it) record(trace, RoomEventStage.OBSERVED, now) }
+            }
+        }
+        observedTraces.forEach { endAsyncSection("${it.name} dispatch", it.cookie) }
+        return observedTraces
+    }
+
+    fun stateUpdated(traces: List<RoomEventTrace>) {
+        if (traces.isEmpty()) return
+        val now = clock()
+        synchronized(this) {
+            traces.forEach { trace ->
+                if (!trace.isStateUpdated) {
+                    trace.isStateUpdated = true
+                    record(trace, RoomEventStage.STATE_UPDATED, now)
+                    stateUpdatedTraces.add(trace)
+                    beginAsyncSection("${trace.name} render", trace.cookie)
+                }
+            }
+        }
+    }
+
+    fun bound() {
+        if (!isEnabled) return
+        val now = clock()
+        synchronized(this) {
+            stateUpdatedTraces.forEach { trace ->
+                record(trace, RoomEventStage.BOUND, now)
+                endAsyncSection("${trace.name} render", trace.cookie)
+            }
+            stateUpdatedTraces.clear()
+        }
+    }
+
+    inline fun <T> section(name: String, block: () -> T): T {
+        beginSection(name)
+        try {
+            return block()
+        } finally {
+            endSection()
+        }
+    }
+
+    @Synchronized
+    fun histogram(eventName: String, stage: RoomEventStage): LatencyHistogram? =
+        histograms[eventName]?.get(stage.ordinal)
+
+    @Synchronized
+    fun dump(): String = buildString {
+        histograms.toSortedMap().forEach { (eventName, stageHistograms) ->
+            append(eventName).append('\n')
+            RoomEventStage.values().forEach { stage ->
+                val histogram = stageHistograms[stage.ordinal]
+                if (histogram.count > 0) append("  ").append(stage).append(' ').append(histogram).append('\n')
+            }
+        }
+    }
+
+    @Synchronized
+    fun reset() {
+        endDispatchSections()
+        stateUpdatedTraces.forEach { endAsyncSection("${it.name} render", it.cookie) }
+        stateUpdatedTraces.clear()
+        histograms.clear()
+    }
+
+    @PublishedApi
+    internal fun beginSection(name: String) {
+        if (isEnabled && isSystemTraceEnabled) Trace.beginSection(name)
+    }
+
+    @PublishedApi
+    internal fun endSection() {
+        if (isEnabled && isSystemTraceEnabled) Trace.endSection()
+    }
+
+    private fun endDispatchSections() {
+        outstandingTraces.forEach { endAsyncSection("${it.name} dispatch", it.cookie) }
+        outstandingTraces.clear()
+    }
+
+    private fun record(trace: RoomEventTrace, stage: RoomEventStage, now: Long) {
+        val stageHistograms = histograms.getOrPut(trace.name) {
+            Array(RoomEventStage.values().size) { LatencyHistogram() }
+        }
+        stageHistograms[stage.ordinal].record(now - trace.createdAt)
+    }
+
+    private fun beginAsyncSection(name: String, cookie: Int) {
+        if (isSystemTraceEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.beginAsyncSection(name, cookie)
+        }
+    }
+
+    private fun endAsyncSection(name: String, cookie: Int) {
+        if (isSystemTraceEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.endAsyncSection(name, cookie)
+        }
+    }
+}
+
+/*
+ * Counts latencies in power of two millisecond buckets, from under 1 ms up to 1 s and over.
+ * Percentiles are reported as the upper bound of the bucket they fall in.
+ */
+class LatencyHistogram {
+
+    private val buckets = LongArray(BUCKET_COUNT)
+    var count = 0L
+        private set
+    var maxNanos = 0L
+        private set
+
+    fun record(latencyNanos: Long) {
+        buckets[bucketOf(latencyNanos)]++
+        count++
+        maxNanos = maxOf(maxNanos, latencyNanos)
+    }
+
+    /* The upper bound in milliseconds of the bucket holding the percentile, or null for the open bucket. */
+    fun percentileMs(percentile: Int): Long? {
+        if (count == 0L) return 0
+        val rank = (count * percentile + 99) / 100
+        var seen = 0L
+        buckets.forEachIndexed { bucket, bucketCount ->
+            seen += bucketCount
+            if (seen >= rank) return if (bucket == BUCKET_COUNT - 1) null else 1L shl bucket
+        }
+        return null
+    }
+
+    override fun toString() =
+        "n=$count p50=${percentileLabel(50)} p90=${percentileLabel(90)} p99=${percentileLabel(99)} " +
+            "max=${maxNanos / 1_000_000.0}ms"
+
+    private fun percentileLabel(percentile: Int) =
+        percentileMs(percentile)?.let { "<${it}ms" } ?: ">=${1L shl (BUCKET_COUNT - 2)}ms"
+
+    private fun bucketOf(latencyNanos: Long): Int {
+        val latencyMs = maxOf(latencyNanos, 0L) / 1_000_000
+        val bucket = 64 - java.lang.Long.numberOfLeadingZeros(latencyMs)
+        return minOf(bucket, BUCKET_COUNT - 1)
+    }
+
+    private companion object {
+        /* Buckets [0, 1), [1, 2), [2, 4) ... [512, 1024) and [1024, inf) milliseconds. */
+        const val BUCKET_COUNT = 12
+    }
+}
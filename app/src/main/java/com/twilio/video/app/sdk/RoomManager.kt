@@ -3,6 +3,7 @@ package com.twilio.video.app.sdk
 import android.content.Context
 import android.content.Intent
 import android.content.SharedPreferences
+import android.os.SystemClock
 import androidx.annotation.VisibleForTesting
 import com.twilio.video.Participant
 import com.twilio.video.RemoteParticipant
@@ -10,8 +11,10 @@ import com.twilio.video.Room
 import com.twilio.video.StatsReport
 import com.twilio.video.TwilioException
 import com.twilio.video.TwilioException.ROOM_MAX_PARTICIPANTS_EXCEEDED_EXCEPTION
+import com.twilio.video.app.data.Preferences
 import com.twilio.video.app.data.api.AuthServiceError
 import com.twilio.video.app.data.api.AuthServiceException
+import com.twilio.video.app.sdk.StatsMetric.BITRATE
 import com.twilio.video.app.ui.room.RoomEvent
 import com.twilio.video.app.ui.room.RoomEvent.ConnectFailure
 import com.twilio.video.app.ui.room.RoomEvent.Connected
@@ -19,43 +22,80 @@ import com.twilio.video.app.ui.room.RoomEvent.Connecting
 import com.twilio.video.app.ui.room.RoomEvent.Disconnected
 import com.twilio.video.app.ui.room.RoomEvent.DominantSpeakerChanged
 import com.twilio.video.app.ui.room.RoomEvent.MaxParticipantFailure
+import com.twilio.video.app.ui.room.RoomEvent.QoeScoresChanged
 import com.twilio.video.app.ui.room.RoomEvent.RecordingStarted
 import com.twilio.video.app.ui.room.RoomEvent.RecordingStopped
 import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.RemoteParticipantConnected
 import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.RemoteParticipantDisconnected
-import com.twilio.video.app.ui.room.RoomEvent.StatsUpdate
 import com.twilio.video.app.ui.room.RoomEvent.Transcription
+import com.twilio.video.app.ui.room.RoomEvent.VideoFreezeEnded
+import com.twilio.video.app.ui.room.RoomEvent.VideoFreezeStarted
 import com.twilio.video.app.ui.room.VideoService.Companion.disableScreenShare
 import com.twilio.video.app.ui.room.VideoService.Companion.enableScreenShare
 import com.twilio.video.app.ui.room.VideoService.Companion.startService
 import com.twilio.video.app.ui.room.VideoService.Companion.stopService
+import com.twilio.video.app.util.get
 import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.flow.MutableSharedFlow
+import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.SharedFlow
+import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.launch
 import org.json.JSONObject
 import timber.log.Timber
+import java.io.File
+import kotlin.math.roundToLong
 
 const val MICROPHONE_TRACK_NAME = "microphone"
 const val CAMERA_TRACK_NAME = "camera"
 const val SCREEN_TRACK_NAME = "screen"
+const val ROOM_EVENT_JOURNAL_DIRECTORY = "room_event_journals"
+const val AVERAGE_BITRATE_WINDOW_SECONDS = 60
 
 class RoomManager(
     private val context: Context,
     private val videoClient: VideoClient,
-    sharedPreferences: SharedPreferences,
+    private val sharedPreferences: SharedPreferences,
     coroutineDispatcher: CoroutineDispatcher = Dispatchers.IO,
+    val roomEventTracer: RoomEventTracer = RoomEventTracer(),
+    private val clock: () -> Long = { SystemClock.elapsedRealtime() },
 ) {
 
     private var statsScheduler: StatsScheduler? = null
-    private val roomListener = RoomListener()
+    private var statsPollingPolicy = StatsPollingPolicy.FAST
+    private val statsAggregator = StatsAggregator(clock)
+    val statsHistory = StatsHistory()
+    internal val remoteTrackIndex = RemoteTrackIndex()
+    val videoFreezeDetector = VideoFreezeDetector()
+    private val qoeEstimator = QoeEstimator(videoFreezeDetector::isSwitchedOff)
+    @Volatile
+    private var trackQoeScores = emptyMap<String, TrackQoeScore>()
 
     @VisibleForTesting(otherwise = VisibleForTesting.PRIVATE)
-    internal var roomScope = CoroutineScope(coroutineDispatcher)
-    private val mutableRoomEvents: MutableSharedFlow<RoomEvent> = MutableSharedFlow()
-    val roomEvents: SharedFlow<RoomEvent> = mutableRoomEvents
+    internal val roomListener: Room.Listener = RoomListener()
+
+    @Volatile
+    private var roomEventRecorder: RoomEventRecorder? = null
+
+    private val roomScope = CoroutineScope(coroutineDispatcher)
+    private val mutableRoomEvents: MutableSharedFlow<TracedRoomEvent> = MutableSharedFlow()
+    val roomEvents: SharedFlow<TracedRoomEvent> = mutableRoomEvents
+
+    /* Events are drained on a lane of their own, so connecting, stats and the journal can not delay them. */
+    @OptIn(ExperimentalCoroutinesApi::class)
+    val roomEventDispatcher = RoomEventDispatcher(
+        CoroutineScope(coroutineDispatcher.limitedParallelism(1)),
+        onReplaced = { roomEventTracer.discarded(it.trace) },
+    ) {
+        mutableRoomEvents.emit(it)
+    }
+
+    /* Stats only need their latest value, so they are conflated apart from the ordered events. */
+    private val mutableRoomStats = MutableStateFlow<RoomStats?>(null)
+    val roomStats: StateFlow<RoomStats?> = mutableRoomStats
 
     @VisibleForTesting(otherwise = VisibleForTesting.PRIVATE)
     internal var localParticipantManager: LocalParticipantManager =
@@ -67,6 +107,9 @@ class RoomManager(
     }
 
     suspend fun connect(identity: String, roomName: String) {
+        if (sharedPreferences.get(Preferences.RECORD_ROOM_EVENTS, Preferences.RECORD_ROOM_EVENTS_DEFAULT)) {
+            startRoomEventRecorder(roomName)
+        }
         sendRoomEvent(Connecting)
         startService(context, roomName)
         connectToRoom(identity, roomName)
@@ -85,14 +128,36 @@ class RoomManager(
     }
 
     fun sendRoomEvent(roomEvent: RoomEvent) {
-        Timber.d("sendRoomEvent: $roomEvent")
-        roomScope.launch { mutableRoomEvents.emit(roomEvent) }
+        Timber.d("sendRoomEvent: %s", roomEvent)
+        val trace = roomEventTracer.created(roomEvent)
+        roomEventRecorder?.record(roomEvent)
+        roomEventDispatcher.send(roomEvent, trace)
+    }
+
+    /* Journals are written to the app files directory and can be replayed by RoomEventJournalReader. */
+    private fun startRoomEventRecorder(roomName: String) {
+        stopRoomEventRecorder()
+        val journalDirectory = File(context.filesDir, ROOM_EVENT_JOURNAL_DIRECTORY)
+        val journal = File(journalDirectory, roomEventJournalFileName(roomName, System.currentTimeMillis()))
+        roomEventRecorder = RoomEventRecorder(roomScope, clock) {
+            journalDirectory.mkdirs()
+            journal.writer()
+        }
+        Timber.i("Recording room events to %s", journal)
+    }
+
+    private fun stopRoomEventRecorder() {
+        roomEventRecorder?.let { recorder ->
+            roomEventRecorder = null
+            recorder.close()
+        }
     }
 
     private fun handleTokenException(e: Exception, error: AuthServiceError? = null): Room? {
         Timber.e(e, "Failed to retrieve token")
         stopService(context)
         sendRoomEvent(RoomEvent.TokenError(serviceError = error))
+        stopRoomEventRecorder()
         return null
     }
 
@@ -124,17 +189,69 @@ class RoomManager(
 
     fun switchCamera() = localParticipantManager.switchCamera()
 
-    fun sendStatsUpdate(statsReports: List<StatsReport>) {
+    fun updateStatsPollingPolicy(statsPollingPolicy: StatsPollingPolicy) {
+        this.statsPollingPolicy = statsPollingPolicy
+        statsScheduler?.pollingPolicy = statsPollingPolicy
+    }
+
+    fun sendStatsUpdate(statsReports: List<StatsReport>, statsRoundTripTimeMs: Long) {
         room?.let { room ->
+            val timestamp = clock()
+            val trackRates = statsAggregator.aggregate(statsReports)
+            roomEventRecorder?.recordStatsTick(trackRates)
+            statsHistory.record(statsReports, trackRates, timestamp)
+            val videoFreezes = videoFreezeDetector.update(
+                statsReports,
+                remoteTrackIndex.remoteTracks,
+                room.localParticipant?.sid,
+                timestamp,
+            )
+            val averageBitratesKbps = HashMap<String, Long>(trackRates.size)
+            for (trackSid in trackRates.keys) {
+                val averageBitrate = statsHistory.average(trackSid, BITRATE, AVERAGE_BITRATE_WINDOW_SECONDS)
+                if (!averageBitrate.isNaN()) averageBitratesKbps[trackSid] = averageBitrate.roundToLong()
+            }
             val roomStats = RoomStats(
-                room.remoteParticipants,
+                remoteTrackIndex.remoteTracks,
                 localParticipantManager.localVideoTrackNames,
                 statsReports,
+                trackRates,
+                averageBitratesKbps,
+                statsRoundTripTimeMs,
+                videoFreezeDetector.freezeStats,
+            )
+            mutableRoomStats.value = roomStats
+
+            for (videoFreeze in videoFreezes) {
+                sendRoomEvent(
+                    if (videoFreeze.isOngoing) VideoFreezeStarted(videoFreeze) else VideoFreezeEnded(videoFreeze),
+                )
+            }
+
+            val trackQoeScores = qoeEstimator.estimate(
+                statsReports,
+                trackRates,
+                remoteTrackIndex.remoteTracks,
+                room.localParticipant?.sid,
             )
-            sendRoomEvent(StatsUpdate(roomStats))
+            if (trackQoeScores !== this.trackQoeScores) {
+                this.trackQoeScores = trackQoeScores
+                sendRoomEvent(QoeScoresChanged(trackQoeScores))
+            }
         }
     }
 
+    /* Publishes a stats tick read back from a journal, which only records the rates of every track. */
+    @VisibleForTesting(otherwise = VisibleForTesting.PRIVATE)
+    internal fun replayStatsTick(trackRates: Map<String, TrackStatsRates>) {
+        mutableRoomStats.value = RoomStats(
+            remoteTrackIndex.remoteTracks,
+            localParticipantManager.localVideoTrackNames,
+            trackRates = trackRates,
+            videoFreezeStats = videoFreezeDetector.freezeStats,
+        )
+    }
+
     fun enableLocalAudio() = localParticipantManager.enableLocalAudio()
 
     fun disableLocalAudio() = localParticipantManager.disableLocalAudio()
@@ -156,7 +273,9 @@ class RoomManager(
 
             setupParticipants(room)
 
-            statsScheduler = StatsScheduler(this@RoomManager, room).apply { start() }
+            statsScheduler = StatsScheduler(this@RoomManager, room, roomScope, clock).apply {
+                start(statsPollingPolicy)
+            }
             this@RoomManager.room = room
         }
 
@@ -170,11 +289,27 @@ class RoomManager(
             stopService(context)
 
             sendRoomEvent(Disconnected)
+            stopRoomEventRecorder()
 
             localParticipantManager.localParticipant = null
 
             statsScheduler?.stop()
             statsScheduler = null
+            statsHistory.clear()
+            remoteTrackIndex.clear()
+            mutableRoomStats.value = null
+            trackQoeScores = emptyMap()
+            videoFreezeDetector.freezeStats.forEach { (trackSid, freezeStats) ->
+                Timber.i(
+                    "Video freezes -> track sid: %s, count: %d, total duration: %d ms",
+                    trackSid,
+                    freezeStats.freezeCount,
+                    freezeStats.totalFreezeDurationMs,
+                )
+            }
+            videoFreezeDetector.clear()
+            Timber.i("Room events -> %s", roomEventDispatcher.metrics)
+            roomEventDispatcher.resetMetrics()
         }
 
         override fun onConnectFailure(room: Room, twilioException: TwilioException) {
@@ -193,6 +328,7 @@ class RoomManager(
             } else {
                 sendRoomEvent(ConnectFailure)
             }
+            stopRoomEventRecorder()
         }
 
         override fun onParticipantConnected(room: Room, remoteParticipant: RemoteParticipant) {
@@ -203,6 +339,7 @@ class RoomManager(
             )
 
             remoteParticipant.setListener(RemoteParticipantListener(this@RoomManager))
+            remoteTrackIndex.addAll(remoteParticipant)
             sendRoomEvent(RemoteParticipantConnected(remoteParticipant))
         }
 
@@ -213,6 +350,7 @@ class RoomManager(
                 remoteParticipant.sid,
             )
 
+            remoteTrackIndex.removeAll(remoteParticipant.sid)
             sendRoomEvent(RemoteParticipantDisconnected(remoteParticipant.sid))
         }
 
@@ -251,6 +389,7 @@ class RoomManager(
 
                 room.remoteParticipants.forEach {
                     it.setListener(RemoteParticipantListener(this@RoomManager))
+                    remoteTrackIndex.addAll(it)
                     participants.add(it)
                 }
 
@@ -1,10 +1,13 @@
 package com.twilio.video.app.sdk
 
-import com.twilio.video.RemoteParticipant
 import com.twilio.video.StatsReport
 
 data class RoomStats(
-    val remoteParticipants: List<RemoteParticipant>,
+    val remoteTracks: Map<String, RemoteTrackInfo>,
     val localVideoTrackNames: Map<String, String>,
     val statsReports: List<StatsReport>? = null,
+    val trackRates: Map<String, TrackStatsRates> = emptyMap(),
+    val averageBitratesKbps: Map<String, Long> = emptyMap(),
+    val statsRoundTripTimeMs: Long = 0,
+    val videoFreezeStats: Map<String, VideoFreezeStats> = emptyMap(),
 )
@@ -0,0 +1,189 @@
+package com.twilio.video.app.sdk
+
+import android.os.SystemClock
+import com.twilio.video.StatsReport
+
+private const val FRAME_RATE_SMOOTHING = 0.25
+private const val ROUND_TRIP_TIME_SMOOTHING = 0.25
+private const val NO_FRAME_RATE = -1
+
+/*
+ * Turns the cumulative counters of consecutive StatsReports into per-interval metrics. The
+ * previous sample of each track is kept in a mutable holder keyed by track sid, so a tick only
+ * allocates the TrackStatsRates handed to the UI.
+ *
+ * Calls must not overlap. RoomManager only aggregates from sendStatsUpdate, which the
+ * StatsScheduler runs for one getStats request at a time on the room dispatcher, so consecutive
+ * calls may run on different threads but are ordered by the scheduler's in-flight flag. The
+ * returned map is not modified afterwards and can be read from the UI.
+ */
+class StatsAggregator(private val clock: () -> Long = { SystemClock.elapsedRealtime() }) {
+
+    private val samples = HashMap<String, TrackSample>()
+    private var generation = 0
+
+    fun aggregate(statsReports: List<StatsReport>): Map<String, TrackStatsRates> {
+        val timestamp = clock()
+        val rates = HashMap<String, TrackStatsRates>()
+        generation++
+        var trackCount = 0
+
+        for (i in 0 until statsReports.size) {
+            val report = statsReports[i]
+            val localAudioTrackStats = report.localAudioTrackStats
+            for (j in 0 until localAudioTrackStats.size) {
+                val stats = localAudioTrackStats[j]
+                update(
+                    stats.trackSid,
+                    timestamp,
+                    stats.bytesSent,
+                    stats.packetsSent,
+                    stats.packetsLost,
+                    NO_FRAME_RATE,
+                    stats.roundTripTime,
+                )?.let { rates[stats.trackSid] = it }
+                trackCount++
+            }
+            val localVideoTrackStats = report.localVideoTrackStats
+            for (j in 0 until localVideoTrackStats.size) {
+                val stats = localVideoTrackStats[j]
+                update(
+                    stats.trackSid,
+                    timestamp,
+                    stats.bytesSent,
+                    stats.packetsSent,
+                    stats.packetsLost,
+                    stats.frameRate,
+                    stats.roundTripTime,
+                )?.let { rates[stats.trackSid] = it }
+                trackCount++
+            }
+            val remoteAudioTrackStats = report.remoteAudioTrackStats
+            for (j in 0 until remoteAudioTrackStats.size) {
+                val stats = remoteAudioTrackStats[j]
+                update(
+                    stats.trackSid,
+                    timestamp,
+                    stats.bytesReceived,
+                    stats.packetsReceived,
+                    stats.packetsLost,
+                    NO_FRAME_RATE,
+                    0,
+                )?.let { rates[stats.trackSid] = it }
+                trackCount++
+            }
+            val remoteVideoTrackStats = report.remoteVideoTrackStats
+            for (j in 0 until remoteVideoTrackStats.size) {
+                val stats = remoteVideoTrackStats[j]
+                update(
+                    stats.trackSid,
+                    timestamp,
+                    stats.bytesReceived,
+                    stats.packetsReceived,
+                    stats.packetsLost,
+                    stats.frameRate,
+                    0,
+                )?.let { rates[stats.trackSid] = it }
+                trackCount++
+            }
+        }
+
+        // Only walk the samples when a track disappeared since the last tick
+        if (samples.size > trackCount) {
+            samples.values.removeAll { it.generation != generation }
+        }
+
+        return rates
+    }
+
+    /*
+     * Records a new sample for the track and returns the metrics for the interval since the
+     * previous one, or null if this is the first sample or the counters were reset.
+     */
+    internal fun update(
+        trackSid: String,
+        timestamp: Long,
+        bytes: Long,
+        packets: Int,
+        packetsLost: Int,
+        frameRate: Int,
+        roundTripTime: Long,
+    ): TrackStatsRates? {
+        val sample = samples[trackSid]
+        if (sample == null) {
+            samples[trackSid] = TrackSample().apply {
+                record(timestamp, bytes, packets, packetsLost, roundTripTime)
+                frameRateMean = frameRate.toDouble()
+                generation = this@StatsAggregator.generation
+            }
+            return null
+        }
+        sample.generation = generation
+
+        val elapsed = timestamp - sample.timestamp
+        val bytesDelta = bytes - sample.bytes
+        val packetsDelta = packets - sample.packets
+        val packetsLostDelta = packetsLost - sample.packetsLost
+        if (elapsed <= 0 || bytesDelta < 0 || packetsDelta < 0) {
+            sample.record(timestamp, bytes, packets, packetsLost, roundTripTime)
+            return null
+        }
+
+        // bits per millisecond is kilobits per second
+        val bitrateKbps = bytesDelta * 8 / elapsed
+        val expectedPackets = packetsDelta + packetsLostDelta.coerceAtLeast(0)
+        val packetLossPercent = if (expectedPackets > 0) {
+            packetsLostDelta.coerceAtLeast(0) * 100f / expectedPackets
+        } else {
+            0f
+        }
+
+        if (frameRate != NO_FRAME_RATE) {
+            val deviation = frameRate - sample.frameRateMean
+            sample.frameRateMean += FRAME_RATE_SMOOTHING * deviation
+            sample.frameRateVariance = (1 - FRAME_RATE_SMOOTHING) *
+                (sample.frameRateVariance + FRAME_RATE_SMOOTHING * deviation * deviation)
+        }
+
+        if (roundTripTime > 0 && sample.roundTripTime > 0) {
+            val roundTripTimeDelta = (roundTripTime - sample.roundTripTime).toDouble()
+            sample.roundTripTimeTrend +=
+                ROUND_TRIP_TIME_SMOOTHING * (roundTripTimeDelta - sample.roundTripTimeTrend)
+        }
+
+        sample.record(timestamp, bytes, packets, packetsLost, roundTripTime)
+
+        return TrackStatsRates(
+            bitrateKbps,
+            packetLossPercent,
+            sample.frameRateVariance.toFloat(),
+            sample.roundTripTimeTrend.toLong(),
+        )
+    }
+
+    private class TrackSample {
+        var generation = 0
+        var timestamp = 0L
+        var bytes = 0L
+        var packets = 0
+        var packetsLost = 0
+        var roundTripTime = 0L
+        var frameRateMean = 0.0
+        var frameRateVariance = 0.0
+        var roundTripTimeTrend = 0.0
+
+        fun record(
+            timestamp: Long,
+            bytes: Long,
+            packets: Int,
+            packetsLost: Int,
+            roundTripTime: Long,
+        ) {
+            this.timestamp = timestamp
+            this.bytes = bytes
+            this.packets = packets
+            this.packetsLost = packetsLost
+            this.roundTripTime = roundTripTime
+        }
+    }
+}
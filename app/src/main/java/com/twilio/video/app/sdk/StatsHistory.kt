@@ -0,0 +1,267 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.StatsReport
+
+/*
+ * Ten minutes of samples at the fastest stats polling interval.
+ */
+const val STATS_HISTORY_DEFAULT_CAPACITY = 600
+
+enum class StatsMetric {
+    BYTES,
+    BITRATE,
+    PACKETS_LOST,
+    JITTER,
+    ROUND_TRIP_TIME,
+    FRAME_RATE,
+    WIDTH,
+    HEIGHT,
+}
+
+data class StatsWindow(
+    val min: Long,
+    val max: Long,
+    val average: Double,
+    val sampleCount: Int,
+)
+
+/*
+ * Fixed size history of stats samples per track sid. Every track gets a ring buffer backed by
+ * primitive arrays that is allocated once, so recording a tick does not create any garbage and
+ * memory does not grow with the duration of a call. Tracks that are no longer part of the stats
+ * reports are dropped.
+ *
+ * A track is only recorded once the StatsAggregator has rates for it. The first report of a track
+ * has no previous counters to derive a bitrate from, and recording it as 0 would drag down the
+ * averages.
+ *
+ * Recording and queries are synchronized, samples are recorded by RoomManager.sendStatsUpdate and
+ * queried by the stats drawer on the main thread.
+ */
+class StatsHistory(private val capacity: Int = STATS_HISTORY_DEFAULT_CAPACITY) {
+
+    private val series = HashMap<String, TrackSeries>()
+    private var generation = 0
+
+    @Synchronized
+    fun record(
+        statsReports: List<StatsReport>,
+        trackRates: Map<String, TrackStatsRates>,
+        timestamp: Long,
+    ) {
+        generation++
+        var trackCount = 0
+
+        for (i in 0 until statsReports.size) {
+            val report = statsReports[i]
+            val localAudioTrackStats = report.localAudioTrackStats
+            for (j in 0 until localAudioTrackStats.size) {
+                val stats = localAudioTrackStats[j]
+                trackCount++
+                val rates = trackRates[stats.trackSid]
+                if (rates == null) {
+                    keep(stats.trackSid)
+                    continue
+                }
+                record(
+                    stats.trackSid,
+                    timestamp,
+                    stats.bytesSent,
+                    rates.bitrateKbps,
+                    stats.packetsLost,
+                    stats.jitter,
+                    stats.roundTripTime,
+                    0,
+                    0,
+                    0,
+                )
+            }
+            val localVideoTrackStats = report.localVideoTrackStats
+            for (j in 0 until localVideoTrackStats.size) {
+                val stats = localVideoTrackStats[j]
+                trackCount++
+                val rates = trackRates[stats.trackSid]
+                if (rates == null) {
+                    keep(stats.trackSid)
+                    continue
+                }
+                record(
+                    stats.trackSid,
+                    timestamp,
+                    stats.bytesSent,
+                    rates.bitrateKbps,
+                    stats.packetsLost,
+                    0,
+                    stats.roundTripTime,
+                    stats.frameRate,
+                    stats.dimensions.width,
+                    stats.dimensions.height,
+                )
+            }
+            val remoteAudioTrackStats = report.remoteAudioTrackStats
+            for (j in 0 until remoteAudioTrackStats.size) {
+                val stats = remoteAudioTrackStats[j]
+                trackCount++
+                val rates = trackRates[stats.trackSid]
+                if (rates == null) {
+                    keep(stats.trackSid)
+                    continue
+                }
+                record(
+                    stats.trackSid,
+                    timestamp,
+                    stats.bytesReceived,
+                    rates.bitrateKbps,
+                    stats.packetsLost,
+                    stats.jitter,
+                    0,
+                    0,
+                    0,
+                    0,
+                )
+            }
+            val remoteVideoTrackStats = report.remoteVideoTrackStats
+            for (j in 0 until remoteVideoTrackStats.size) {
+                val stats = remoteVideoTrackStats[j]
+                trackCount++
+                val rates = trackRates[stats.trackSid]
+                if (rates == null) {
+                    keep(stats.trackSid)
+                    continue
+                }
+                record(
+                    stats.trackSid,
+                    timestamp,
+                    stats.bytesReceived,
+                    rates.bitrateKbps,
+                    stats.packetsLost,
+                    0,
+                    0,
+                    stats.frameRate,
+                    stats.dimensions.width,
+                    stats.dimensions.height,
+                )
+            }
+        }
+
+        if (series.size > trackCount) {
+            series.values.removeAll { it.generation != generation }
+        }
+    }
+
+    /* Keeps the history of a track that is still reported but has no rates for this report. */
+    private fun keep(trackSid: String) {
+        series[trackSid]?.generation = generation
+    }
+
+    @Synchronized
+    internal fun record(
+        trackSid: String,
+        timestamp: Long,
+        bytes: Long,
+        bitrateKbps: Long,
+        packetsLost: Int,
+        jitter: Int,
+        roundTripTime: Long,
+        frameRate: Int,
+        width: Int,
+        height: Int,
+    ) {
+        val trackSeries = series.getOrPut(trackSid) { TrackSeries(capacity) }
+        trackSeries.generation = generation
+        val index = trackSeries.next(timestamp)
+        trackSeries.set(index, StatsMetric.BYTES, bytes)
+        trackSeries.set(index, StatsMetric.BITRATE, bitrateKbps)
+        trackSeries.set(index, StatsMetric.PACKETS_LOST, packetsLost.toLong())
+        trackSeries.set(index, StatsMetric.JITTER, jitter.toLong())
+        trackSeries.set(index, StatsMetric.ROUND_TRIP_TIME, roundTripTime)
+        trackSeries.set(index, StatsMetric.FRAME_RATE, frameRate.toLong())
+        trackSeries.set(index, StatsMetric.WIDTH, width.toLong())
+        trackSeries.set(index, StatsMetric.HEIGHT, height.toLong())
+    }
+
+    /*
+     * Returns min, max and average of the metric over the samples recorded in the last
+     * windowSeconds before the most recent sample of the track, or null if there is no history for
+     * the track.
+     */
+    @Synchronized
+    fun window(trackSid: String, metric: StatsMetric, windowSeconds: Int): StatsWindow? {
+        val trackSeries = series[trackSid] ?: return null
+        if (trackSeries.size == 0) return null
+        val newest = trackSeries.newestIndex()
+        val since = trackSeries.timestamps[newest] - windowSeconds * 1000L
+        var min = Long.MAX_VALUE
+        var max = Long.MIN_VALUE
+        var sum = 0.0
+        var count = 0
+        var index = newest
+        while (count < trackSeries.size && trackSeries.timestamps[index] > since) {
+            val value = trackSeries.get(index, metric)
+            if (value < min) min = value
+            if (value > max) max = value
+            sum += value
+            count++
+            index = if (index == 0) capacity - 1 else index - 1
+        }
+        return StatsWindow(min, max, sum / count, count)
+    }
+
+    /*
+     * Average of the metric over the same samples as window, without allocating a StatsWindow.
+     * Returns NaN if there is no history for the track.
+     */
+    @Synchronized
+    fun average(trackSid: String, metric: StatsMetric, windowSeconds: Int): Double {
+        val trackSeries = series[trackSid] ?: return Double.NaN
+        if (trackSeries.size == 0) return Double.NaN
+        val newest = trackSeries.newestIndex()
+        val since = trackSeries.timestamps[newest] - windowSeconds * 1000L
+        var sum = 0.0
+        var count = 0
+        var index = newest
+        while (count < trackSeries.size && trackSeries.timestamps[index] > since) {
+            sum += trackSeries.get(index, metric)
+            count++
+            index = if (index == 0) capacity - 1 else index - 1
+        }
+        return sum / count
+    }
+
+    @Synchronized
+    fun latest(trackSid: String, metric: StatsMetric): Long? =
+        series[trackSid]?.takeIf { it.size > 0 }?.let { it.get(it.newestIndex(), metric) }
+
+    @Synchronized
+    fun clear() {
+        series.clear()
+    }
+
+    private class TrackSeries(private val capacity: Int) {
+        val timestamps = LongArray(capacity)
+        private val values = LongArray(capacity * METRIC_COUNT)
+        var generation = 0
+        var size = 0
+        private var head = 0
+
+        fun next(timestamp: Long): Int {
+            val index = head
+            timestamps[index] = timestamp
+            head = (head + 1) % capacity
+            if (size < capacity) size++
+            return index
+        }
+
+        fun newestIndex() = if (head == 0) capacity - 1 else head - 1
+
+        fun set(index: Int, metric: StatsMetric, value: Long) {
+            values[index * METRIC_COUNT + metric.ordinal] = value
+        }
+
+        fun get(index: Int, metric: StatsMetric) = values[index * METRIC_COUNT + metric.ordinal]
+    }
+
+    private companion object {
+        val METRIC_COUNT = StatsMetric.values().size
+    }
+}
@@ -0,0 +1,25 @@
+package com.twilio.video.app.sdk
+
+/*
+ * How often the StatsScheduler requests stats from the Room. Stats are only polled quickly while
+ * somebody is looking at them, a slow cadence keeps the derived metrics warm while the stats
+ * drawer is closed and polling stops entirely when stats are disabled or the app is backgrounded.
+ */
+enum class StatsPollingPolicy(val intervalMs: Long) {
+    FAST(1000),
+    SLOW(5000),
+    PAUSED(0),
+    ;
+
+    companion object {
+        fun from(
+            isStatsEnabled: Boolean,
+            isStatsVisible: Boolean,
+            isInForeground: Boolean,
+        ) = when {
+            !isStatsEnabled || !isInForeground -> PAUSED
+            isStatsVisible -> FAST
+            else -> SLOW
+        }
+    }
+}
@@ -15,47 +15,136 @@
  */
 package com.twilio.video.app.sdk
 
-import android.os.Handler
-import android.os.HandlerThread
+import android.os.SystemClock
 import com.twilio.video.Room
 import com.twilio.video.StatsListener
+import com.twilio.video.StatsReport
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.launch
 import timber.log.Timber
+import java.util.concurrent.atomic.AtomicBoolean
 
-class StatsScheduler(private val roomManager: RoomManager, private val room: Room) {
-    private var handlerThread: HandlerThread? = null
-    private var handler: Handler? = null
-    private val statsListener: StatsListener = StatsListener { statsReports ->
-        roomManager.sendStatsUpdate(statsReports)
+/* Ticks without a response after which a getStats request is given up. */
+const val STATS_REQUEST_MAX_MISSED_TICKS = 5
+
+/*
+ * Polls the room stats from a coroutine ticker on the shared room dispatcher. At most one
+ * getStats request is in flight, including the processing of its reports, and ticks that fire
+ * while a request is still pending are skipped instead of queued.
+ *
+ * The SDK may never call back, for example while the room disconnects or reconnects, so a request
+ * that has not been answered after STATS_REQUEST_MAX_MISSED_TICKS ticks is abandoned and the next
+ * tick requests stats again. A late response to an abandoned request, or to one that was pending
+ * when the scheduler stopped, is dropped, so reports are still processed one at a time and never
+ * after the room was cleaned up.
+ */
+class StatsScheduler(
+    private val roomManager: RoomManager,
+    private val room: Room,
+    private val coroutineScope: CoroutineScope,
+    private val clock: () -> Long = { SystemClock.elapsedRealtime() },
+) {
+    private var tickerJob: Job? = null
+    private val isRequestInFlight = AtomicBoolean(false)
+
+    @Volatile
+    private var requestStartTime = 0L
+    private var requestId = 0L
+    private var isAwaitingResponse = false
+    private var missedTicks = 0
+
+    @Volatile
+    var pollingPolicy: StatsPollingPolicy = StatsPollingPolicy.FAST
+        set(value) {
+            if (field == value) return
+            field = value
+            Timber.d("Stats polling policy changed to %s", value)
+            if (tickerJob != null) launchTicker()
+        }
+
+    @Volatile
+    var skippedTicks = 0
+        private set
+
+    fun start(pollingPolicy: StatsPollingPolicy = this.pollingPolicy) {
+        stop()
+        this.pollingPolicy = pollingPolicy
+        launchTicker()
+        Timber.d("Stats scheduler started")
     }
-    private val isRunning: Boolean
-        get() = handlerThread?.isAlive ?: false
 
-    fun start() {
-        if (isRunning) {
-            stop()
+    /* Also invalidates the pending request, so stats that arrive after the room disconnected are dropped. */
+    @Synchronized
+    fun stop() {
+        requestId++
+        isAwaitingResponse = false
+        missedTicks = 0
+        isRequestInFlight.set(false)
+        tickerJob?.let { tickerJob ->
+            tickerJob.cancel()
+            this.tickerJob = null
+            Timber.d("Stats scheduler stopped")
         }
-        val handlerThread = HandlerThread("StatsSchedulerThread")
-        this.handlerThread = handlerThread
-        handlerThread.start()
-        val handler = Handler(handlerThread.looper)
-        this.handler = handler
-        val statsRunner: Runnable = object : Runnable {
-            override fun run() {
-                room.getStats(statsListener)
-                handler.postDelayed(this, 1000)
+    }
+
+    @Synchronized
+    private fun launchTicker() {
+        tickerJob?.cancel()
+        val pollingPolicy = pollingPolicy
+        tickerJob = coroutineScope.launch {
+            if (pollingPolicy == StatsPollingPolicy.PAUSED) return@launch
+            while (isActive) {
+                tick()
+                delay(pollingPolicy.intervalMs)
             }
         }
-        handler.post(statsRunner)
-        Timber.d("Stats scheduler thread started")
     }
 
-    fun stop() {
-        if (isRunning) {
-            handlerThread?.let { handlerThread ->
-                handlerThread.quit()
-                this.handlerThread = null
-                handler = null
-                Timber.d("Stats scheduler thread closed")
+    private fun tick() {
+        if (!isRequestInFlight.compareAndSet(false, true)) {
+            skippedTicks++
+            Timber.d("Skipping stats tick, previous getStats request is still in flight")
+            abandonUnansweredRequest()
+            return
+        }
+        val requestId = startRequest()
+        room.getStats(StatsListener { statsReports -> onStats(requestId, statsReports) })
+    }
+
+    @Synchronized
+    private fun startRequest(): Long {
+        missedTicks = 0
+        isAwaitingResponse = true
+        requestStartTime = clock()
+        return ++requestId
+    }
+
+    @Synchronized
+    private fun abandonUnansweredRequest() {
+        if (!isAwaitingResponse || ++missedTicks < STATS_REQUEST_MAX_MISSED_TICKS) return
+        Timber.w("getStats did not call back within %d ticks, abandoning the request", missedTicks)
+        requestId++
+        isAwaitingResponse = false
+        isRequestInFlight.set(false)
+    }
+
+    /* The listener is called on the main thread, so the reports are processed on the ticker's dispatcher. */
+    @Synchronized
+    private fun onStats(requestId: Long, statsReports: List<StatsReport>) {
+        if (requestId != this.requestId) {
+            Timber.d("Dropping the late stats of an abandoned or stopped getStats request")
+            return
+        }
+        isAwaitingResponse = false
+        val roundTripTimeMs = clock() - requestStartTime
+        coroutineScope.launch {
+            try {
+                roomManager.sendStatsUpdate(statsReports, roundTripTimeMs)
+            } finally {
+                isRequestInFlight.set(false)
             }
         }
     }
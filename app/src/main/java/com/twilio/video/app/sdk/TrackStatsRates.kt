@@ -0,0 +1,14 @@
+package com.twilio.video.app.sdk
+
+/*
+ * Metrics derived from two consecutive stats samples of the same track.
+ *
+ * roundTripTimeTrend is the smoothed change in round trip time per interval in milliseconds, a
+ * positive value means the round trip time is getting worse.
+ */
+data class TrackStatsRates(
+    val bitrateKbps: Long,
+    val packetLossPercent: Float,
+    val frameRateVariance: Float,
+    val roundTripTimeTrend: Long,
+)
@@ -0,0 +1,181 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.StatsReport
+import java.util.concurrent.ConcurrentHashMap
+
+enum class VideoFreezeCause {
+    NO_FRAMES,
+    NO_BYTES,
+    DIMENSIONS_COLLAPSED,
+}
+
+/* durationMs is zero while the freeze is ongoing and measured at stats interval resolution. */
+data class VideoFreeze(
+    val trackSid: String,
+    val participantSid: String?,
+    val cause: VideoFreezeCause,
+    val startTimestamp: Long,
+    val durationMs: Long = 0,
+    val isOngoing: Boolean = true,
+)
+
+data class VideoFreezeStats(
+    val freezeCount: Int = 0,
+    val totalFreezeDurationMs: Long = 0,
+)
+
+/*
+ * Watches successive video track stats for freezes: no frames, no new bytes or dimensions that
+ * collapsed to nothing. Remote tracks are only watched while they are subscribed and not switched
+ * off, so a track switched off by the server is never reported as frozen, and a track is only
+ * watched after it rendered at least one frame.
+ *
+ * update is synchronized and called by RoomManager.sendStatsUpdate for one stats report at a time.
+ * Switch off changes arrive on the main thread, so they are kept in a concurrent set. freezeStats
+ * is a snapshot replaced whenever a freeze ends, so it can be published with the RoomStats.
+ */
+class VideoFreezeDetector {
+
+    private val tracks = HashMap<String, TrackState>()
+    private val switchedOffTracks = ConcurrentHashMap.newKeySet<String>()
+    private var generation = 0
+
+    /* Freeze counts and durations per track sid since the start of the call. */
+    @Volatile
+    var freezeStats: Map<String, VideoFreezeStats> = emptyMap()
+        private set
+
+    fun setSwitchedOff(trackSid: String, isSwitchedOff: Boolean) {
+        if (isSwitchedOff) switchedOffTracks.add(trackSid) else switchedOffTracks.remove(trackSid)
+    }
+
+    fun isSwitchedOff(trackSid: String) = switchedOffTracks.contains(trackSid)
+
+    /* Returns the freezes that started or ended with these stats. */
+    @Synchronized
+    fun update(
+        statsReports: List<StatsReport>,
+        remoteTracks: Map<String, RemoteTrackInfo>,
+        localParticipantSid: String?,
+        timestamp: Long,
+    ): List<VideoFreeze> {
+        generation++
+        val freezes = mutableListOf<VideoFreeze>()
+        var trackCount = 0
+
+        for (i in 0 until statsReports.size) {
+            val report = statsReports[i]
+            val localVideoTrackStats = report.localVideoTrackStats
+            for (j in 0 until localVideoTrackStats.size) {
+                val stats = localVideoTrackStats[j]
+                update(
+                    stats.trackSid,
+                    localParticipantSid,
+                    true,
+                    timestamp,
+                    stats.bytesSent,
+                    stats.frameRate,
+                    stats.dimensions.width,
+                    stats.dimensions.height,
+                )?.let { freezes.add(it) }
+                trackCount++
+            }
+            val remoteVideoTrackStats = report.remoteVideoTrackStats
+            for (j in 0 until remoteVideoTrackStats.size) {
+                val stats = remoteVideoTrackStats[j]
+                val remoteTrack = remoteTracks[stats.trackSid]
+                update(
+                    stats.trackSid,
+                    remoteTrack?.participantSid,
+                    remoteTrack != null,
+                    timestamp,
+                    stats.bytesReceived,
+                    stats.frameRate,
+                    stats.dimensions.width,
+                    stats.dimensions.height,
+                )?.let { freezes.add(it) }
+                trackCount++
+            }
+        }
+
+        if (tracks.size > trackCount) {
+            val iterator = tracks.entries.iterator()
+            while (iterator.hasNext()) {
+                val (trackSid, state) = iterator.next()
+                if (state.generation != generation) {
+                    state.freeze?.let { freezes.add(endFreeze(trackSid, it, state.timestamp)) }
+                    iterator.remove()
+                }
+            }
+        }
+
+        return freezes
+    }
+
+    @Synchronized
+    internal fun update(
+        trackSid: String,
+        participantSid: String?,
+        isSubscribed: Boolean,
+        timestamp: Long,
+        bytes: Long,
+        frameRate: Int,
+        width: Int,
+        height: Int,
+    ): VideoFreeze? {
+        val state = tracks.getOrPut(trackSid) { TrackState() }
+        state.generation = generation
+        val isWatched = isSubscribed && !switchedOffTracks.contains(trackSid) && state.hasRendered
+        val cause = when {
+            !isWatched -> null
+            frameRate == 0 -> VideoFreezeCause.NO_FRAMES
+            bytes == state.bytes -> VideoFreezeCause.NO_BYTES
+            (width == 0 || height == 0) && state.width > 0 && state.height > 0 ->
+                VideoFreezeCause.DIMENSIONS_COLLAPSED
+            else -> null
+        }
+        if (frameRate > 0) state.hasRendered = true
+        state.bytes = bytes
+        state.timestamp = timestamp
+        if (width > 0 && height > 0) {
+            state.width = width
+            state.height = height
+        }
+
+        val freeze = state.freeze
+        return when {
+            cause != null && freeze == null ->
+                VideoFreeze(trackSid, participantSid, cause, timestamp).also { state.freeze = it }
+            cause == null && freeze != null -> {
+                state.freeze = null
+                endFreeze(trackSid, freeze, timestamp)
+            }
+            else -> null
+        }
+    }
+
+    @Synchronized
+    fun clear() {
+        tracks.clear()
+        switchedOffTracks.clear()
+        freezeStats = emptyMap()
+    }
+
+    private fun endFreeze(trackSid: String, freeze: VideoFreeze, timestamp: Long): VideoFreeze {
+        val durationMs = timestamp - freeze.startTimestamp
+        val stats = freezeStats[trackSid] ?: VideoFreezeStats()
+        freezeStats = freezeStats +
+            (trackSid to VideoFreezeStats(stats.freezeCount + 1, stats.totalFreezeDurationMs + durationMs))
+        return freeze.copy(durationMs = durationMs, isOngoing = false)
+    }
+
+    private class TrackState {
+        var generation = 0
+        var timestamp = 0L
+        var bytes = -1L
+        var width = 0
+        var height = 0
+        var hasRendered = false
+        var freeze: VideoFreeze? = null
+    }
+}
@@ -2,7 +2,9 @@ package com.twilio.video.app.sdk
 
 import android.app.Application
 import android.content.SharedPreferences
+import com.twilio.video.app.BuildConfig
 import com.twilio.video.app.data.api.TokenService
+import com.twilio.video.app.util.isInternalFlavor
 import dagger.Module
 import dagger.Provides
 import dagger.hilt.InstallIn
@@ -22,6 +24,7 @@ class VideoSdkModule {
     ): RoomManager {
         val connectOptionsFactory = ConnectOptionsFactory(application, sharedPreferences, tokenService)
         val videoClient = VideoClient(application, connectOptionsFactory)
-        return RoomManager(application, videoClient, sharedPreferences)
+        val roomEventTracer = RoomEventTracer(isEnabled = BuildConfig.DEBUG || isInternalFlavor)
+        return RoomManager(application, videoClient, sharedPreferences, roomEventTracer = roomEventTracer)
     }
 }
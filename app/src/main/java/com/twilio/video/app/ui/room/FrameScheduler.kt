@@ -0,0 +1,33 @@
+package com.twilio.video.app.ui.room
+
+import android.os.Handler
+import android.os.Looper
+import android.view.Choreographer
+
+/* Runs a callback once, at the start of the next display frame. */
+interface FrameScheduler {
+
+    fun postFrameCallback(callback: () -> Unit)
+
+    /* Runs the callback right away, so every update is committed on its own. */
+    object Immediate : FrameScheduler {
+        override fun postFrameCallback(callback: () -> Unit) = callback()
+    }
+}
+
+/*
+ * Callbacks run on the main thread, whose Choreographer they are posted to. Only the main thread
+ * has a Choreographer, so callbacks posted from other threads are handed to it first.
+ */
+class ChoreographerFrameScheduler : FrameScheduler {
+
+    private val mainHandler = Handler(Looper.getMainLooper())
+
+    override fun postFrameCallback(callback: () -> Unit) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            Choreographer.getInstance().postFrameCallback { callback() }
+        } else {
+            mainHandler.post { postFrameCallback(callback) }
+        }
+    }
+}
@@ -1,25 +1,73 @@
 package com.twilio.video.app.ui.room
 
 import android.view.ViewGroup
+import android.view.ViewGroup.LayoutParams.MATCH_PARENT
 import androidx.lifecycle.LiveData
 import androidx.lifecycle.MutableLiveData
 import androidx.recyclerview.widget.DiffUtil
 import androidx.recyclerview.widget.ListAdapter
+import androidx.recyclerview.widget.RecyclerView
 import com.twilio.video.app.participant.ParticipantViewState
+import java.util.EnumSet
 
-internal class ParticipantAdapter : ListAdapter<ParticipantViewState, ParticipantViewHolder>(
+/* The parts of a thumbnail that can be rebound on their own, see ParticipantDiffCallback. */
+internal enum class ParticipantChange {
+    MUTE,
+    PIN,
+    NETWORK_QUALITY,
+    QOE_SCORE,
+    VIDEO_TRACK,
+    SWITCHED_OFF,
+}
+
+/*
+ * Shows participants as fixed size thumbnails, or as tiles that fill their grid cell when isGrid is
+ * set. The height of a grid row is set by the ParticipantGridLayoutManager at every layout.
+ */
+internal class ParticipantAdapter(
+    private val videoRenderSizes: VideoRenderSizes,
+    private val isGrid: Boolean = false,
+) : ListAdapter<ParticipantViewState, ParticipantViewHolder>(
     ParticipantDiffCallback(),
 ) {
 
     private val mutableViewHolderEvents = MutableLiveData<RoomViewEvent>()
     val viewHolderEvents: LiveData<RoomViewEvent> = mutableViewHolderEvents
 
-    override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): ParticipantViewHolder =
-        ParticipantViewHolder(ParticipantThumbView(parent.context))
+    override fun onCreateViewHolder(parent: ViewGroup, viewType: Int): ParticipantViewHolder {
+        val thumb = ParticipantThumbView(parent.context)
+        if (isGrid) {
+            thumb.fillParent()
+            thumb.layoutParams = RecyclerView.LayoutParams(MATCH_PARENT, 0)
+        }
+        return ParticipantViewHolder(thumb, videoRenderSizes)
+    }
 
     override fun onBindViewHolder(holder: ParticipantViewHolder, position: Int) =
         holder.bind(getItem(position)) { mutableViewHolderEvents.value = it }
 
+    /* Changes of several diffs that were dispatched before the next layout arrive as separate payloads. */
+    override fun onBindViewHolder(holder: ParticipantViewHolder, position: Int, payloads: List<Any>) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position)
+            return
+        }
+        val changes = EnumSet.noneOf(ParticipantChange::class.java)
+        payloads.forEach { payload ->
+            @Suppress("UNCHECKED_CAST")
+            changes.addAll(payload as Set<ParticipantChange>)
+        }
+        holder.bindChanges(getItem(position), changes)
+    }
+
+    override fun onViewRecycled(holder: ParticipantViewHolder) = holder.unbind()
+
+    /*
+     * The change payload is the set of ParticipantChanges between two versions of a participant,
+     * so a network quality update only rebinds the network quality image. Changes to fields the
+     * thumbnail does not show result in an empty set and no rebinding at all, while an identity
+     * change has no payload and rebinds the whole thumbnail.
+     */
     class ParticipantDiffCallback : DiffUtil.ItemCallback<ParticipantViewState>() {
         override fun areItemsTheSame(
             oldItem: ParticipantViewState,
@@ -31,10 +79,25 @@ internal class ParticipantAdapter : ListAdapter<ParticipantViewState, Participan
             oldItem: ParticipantViewState,
             newItem: ParticipantViewState,
         ): Boolean =
-            oldItem == newItem
+            oldItem === newItem || oldItem == newItem
 
         override fun getChangePayload(oldItem: ParticipantViewState, newItem: ParticipantViewState): Any? {
-            return newItem
+            if (oldItem.identity != newItem.identity || oldItem.isLocalParticipant != newItem.isLocalParticipant) {
+                return null
+            }
+            val changes = EnumSet.noneOf(ParticipantChange::class.java)
+            if (oldItem.isMuted != newItem.isMuted) changes.add(ParticipantChange.MUTE)
+            if (oldItem.isPinned != newItem.isPinned) changes.add(ParticipantChange.PIN)
+            if (oldItem.networkQualityLevel != newItem.networkQualityLevel) {
+                changes.add(ParticipantChange.NETWORK_QUALITY)
+            }
+            if (oldItem.qoeScore?.overall != newItem.qoeScore?.overall) changes.add(ParticipantChange.QOE_SCORE)
+            if (oldItem.videoTrack?.videoTrack !== newItem.videoTrack?.videoTrack) {
+                changes.add(ParticipantChange.VIDEO_TRACK)
+            } else if (oldItem.videoTrack?.isSwitchedOff != newItem.videoTrack?.isSwitchedOff) {
+                changes.add(ParticipantChange.SWITCHED_OFF)
+            }
+            return changes
         }
     }
 }
@@ -0,0 +1,24 @@
+package com.twilio.video.app.ui.room
+
+import android.content.Context
+import androidx.recyclerview.widget.GridLayoutManager
+import androidx.recyclerview.widget.RecyclerView
+
+/*
+ * Lays the tiles of a grid page out in rows that fill the height of the RecyclerView. RecyclerView
+ * checks the layout params of every view it lays out, new, rebound or reused from the scrap, so
+ * the height is taken from the current size at every layout: before the first one the tiles have
+ * no height to go stale, and a resize, like a rotation or the thumbnails being shown, resizes all
+ * tiles on the next layout without rebinding them.
+ */
+internal class ParticipantGridLayoutManager(
+    context: Context,
+    columns: Int,
+    private val rows: Int,
+) : GridLayoutManager(context, columns) {
+
+    override fun checkLayoutParams(lp: RecyclerView.LayoutParams?): Boolean {
+        lp?.height = maxOf(height - paddingTop - paddingBottom, 0) / rows
+        return super.checkLayoutParams(lp)
+    }
+}
@@ -0,0 +1,96 @@
+package com.twilio.video.app.ui.room
+
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.TrackPriority
+import com.twilio.video.app.participant.ParticipantViewState
+import timber.log.Timber
+
+/*
+ * Pages through the participants pageSize tiles at a time in grid mode. Only the tiles of the
+ * visible page are bound, and so sinked, by the grid adapter. The tracks of the adjacent pages
+ * stay switched on at a low priority so swiping to them shows video right away, while the tracks
+ * of all other pages are switched off when the Room uses ClientTrackSwitchOffControl.MANUAL, or
+ * also kept at a low priority otherwise. The track of the primary participant is always switched
+ * on, its priority is left to the ParticipantManager.
+ *
+ * Owned by RoomActivity and only used from its views and state observers, on the main thread.
+ */
+class ParticipantGridPager(val pageSize: Int) {
+
+    private val appliedTileStates = HashMap<RemoteVideoTrack, TileState>()
+    private val currentTracks = HashSet<RemoteVideoTrack>()
+
+    var page = 0
+        private set
+    var pageCount = 1
+        private set
+    var isManualTrackSwitchOff = false
+
+    fun page(thumbnails: List<ParticipantViewState>): List<ParticipantViewState> {
+        pageCount = maxOf(1, (thumbnails.size + pageSize - 1) / pageSize)
+        page = page.coerceAtMost(pageCount - 1)
+        val start = page * pageSize
+        return thumbnails.subList(start, minOf(start + pageSize, thumbnails.size))
+    }
+
+    fun nextPage(): Boolean = changePage(page + 1)
+
+    fun previousPage(): Boolean = changePage(page - 1)
+
+    fun updateTracks(thumbnails: List<ParticipantViewState>, primaryParticipantSid: String?) {
+        currentTracks.clear()
+        for (position in thumbnails.indices) {
+            val thumbnail = thumbnails[position]
+            val videoTrack = thumbnail.getRemoteVideoTrack() ?: continue
+            currentTracks.add(videoTrack)
+            val tilePage = position / pageSize
+            val tileState = when {
+                thumbnail.sid == primaryParticipantSid -> TileState.PRIMARY
+                tilePage == page -> TileState.VISIBLE
+                tilePage == page - 1 || tilePage == page + 1 -> TileState.PREFETCHED
+                isManualTrackSwitchOff -> TileState.SWITCHED_OFF
+                else -> TileState.PREFETCHED
+            }
+            if (appliedTileStates.put(videoTrack, tileState) != tileState) {
+                apply(videoTrack, tileState)
+            }
+        }
+        appliedTileStates.keys.retainAll(currentTracks)
+    }
+
+    /* Forgets the tracks after leaving the Room, they are released together with it. */
+    fun clear() {
+        appliedTileStates.clear()
+        page = 0
+        pageCount = 1
+    }
+
+    private fun changePage(newPage: Int): Boolean {
+        if (newPage < 0 || newPage >= pageCount) return false
+        page = newPage
+        return true
+    }
+
+    private fun apply(videoTrack: RemoteVideoTrack, tileState: TileState) {
+        Timber.d("Grid tile track %s is %s", videoTrack.sid, tileState)
+        when (tileState) {
+            TileState.PRIMARY -> if (isManualTrackSwitchOff) videoTrack.switchOn()
+            TileState.VISIBLE -> {
+                if (isManualTrackSwitchOff) videoTrack.switchOn()
+                videoTrack.priority = null
+            }
+            TileState.PREFETCHED -> {
+                if (isManualTrackSwitchOff) videoTrack.switchOn()
+                videoTrack.priority = TrackPriority.LOW
+            }
+            TileState.SWITCHED_OFF -> videoTrack.switchOff()
+        }
+    }
+
+    private enum class TileState {
+        PRIMARY,
+        VISIBLE,
+        PREFETCHED,
+        SWITCHED_OFF,
+    }
+}
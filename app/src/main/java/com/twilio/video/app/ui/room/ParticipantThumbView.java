@@ -20,6 +20,7 @@ import android.content.Context;
 import android.util.AttributeSet;
 import android.view.LayoutInflater;
 import android.view.View;
+import android.view.ViewGroup;
 import androidx.core.content.ContextCompat;
 import com.twilio.video.app.R;
 import com.twilio.video.app.databinding.ParticipantViewBinding;
@@ -56,6 +57,7 @@ public class ParticipantThumbView extends ParticipantView {
         selectedLayout = binding.selectedLayout;
         stubImage = binding.stub;
         networkQualityLevelImg = binding.networkQuality;
+        qoeScoreText = binding.qoeScore;
         selectedIdentity = binding.selectedIdentity;
         audioToggle = binding.audioToggle;
         pinImage = binding.pin;
@@ -65,6 +67,14 @@ public class ParticipantThumbView extends ParticipantView {
         setScaleType(scaleType);
     }
 
+    /* Lets the tile fill the size it is laid out at instead of the fixed thumbnail size. */
+    void fillParent() {
+        ViewGroup.LayoutParams layoutParams = binding.getRoot().getLayoutParams();
+        layoutParams.width = ViewGroup.LayoutParams.MATCH_PARENT;
+        layoutParams.height = ViewGroup.LayoutParams.MATCH_PARENT;
+        binding.getRoot().setLayoutParams(layoutParams);
+    }
+
     @Override
     public void setState(int state) {
         super.setState(state);
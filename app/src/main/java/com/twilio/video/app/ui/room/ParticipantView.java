@@ -35,6 +35,7 @@ import com.twilio.video.VideoTrack;
 import com.twilio.video.app.R;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.Locale;
 
 abstract class ParticipantView extends FrameLayout {
 
@@ -52,6 +53,7 @@ abstract class ParticipantView extends FrameLayout {
     RelativeLayout selectedLayout;
     ImageView stubImage;
     @Nullable ImageView networkQualityLevelImg;
+    @Nullable TextView qoeScoreText;
     TextView selectedIdentity;
     @Nullable ImageView audioToggle;
     @Nullable ImageView pinImage;
@@ -137,6 +139,16 @@ abstract class ParticipantView extends FrameLayout {
         if (pinImage != null) pinImage.setVisibility(pinned ? VISIBLE : GONE);
     }
 
+    public void setQoeScore(@Nullable Float qoeScore) {
+        if (qoeScoreText == null) return;
+        if (qoeScore == null) {
+            qoeScoreText.setVisibility(GONE);
+        } else {
+            qoeScoreText.setText(String.format(Locale.US, "%.1f", qoeScore));
+            qoeScoreText.setVisibility(VISIBLE);
+        }
+    }
+
     public VideoTextureView getVideoTextureView() {
         return videoView;
     }
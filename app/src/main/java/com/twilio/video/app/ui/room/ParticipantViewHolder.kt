@@ -17,10 +17,13 @@ import com.twilio.video.app.sdk.VideoTrackViewState
 import com.twilio.video.app.ui.room.RoomViewEvent.PinParticipant
 import timber.log.Timber
 
-internal class ParticipantViewHolder(internal val thumb: ParticipantThumbView) :
-    RecyclerView.ViewHolder(thumb) {
+internal class ParticipantViewHolder(
+    internal val thumb: ParticipantThumbView,
+    videoRenderSizes: VideoRenderSizes,
+) : RecyclerView.ViewHolder(thumb) {
 
     private val localParticipantIdentity = thumb.context.getString(R.string.you)
+    private val renderSizeReporter = VideoRenderSizeReporter(thumb.videoTextureView, videoRenderSizes)
 
     fun bind(participantViewState: ParticipantViewState, viewEventAction: (RoomViewEvent) -> Unit) {
         Timber.d("bind ParticipantViewHolder with data item: %s", participantViewState)
@@ -44,9 +47,38 @@ internal class ParticipantViewHolder(internal val thumb: ParticipantThumbView) :
             networkQualityLevelImg?.let {
                 setNetworkQualityLevelImage(it, participantViewState.networkQualityLevel)
             }
+            setQoeScore(participantViewState.qoeScore?.overall)
         }
     }
 
+    /* Rebinds only the parts of an already bound thumbnail that changed. */
+    fun bindChanges(participantViewState: ParticipantViewState, changes: Set<ParticipantChange>) {
+        thumb.run {
+            if (ParticipantChange.MUTE in changes) setMuted(participantViewState.isMuted)
+            if (ParticipantChange.PIN in changes) setPinned(participantViewState.isPinned)
+            if (ParticipantChange.NETWORK_QUALITY in changes) {
+                networkQualityLevelImg?.let {
+                    setNetworkQualityLevelImage(it, participantViewState.networkQualityLevel)
+                }
+            }
+            if (ParticipantChange.QOE_SCORE in changes) setQoeScore(participantViewState.qoeScore?.overall)
+            if (ParticipantChange.VIDEO_TRACK in changes) {
+                updateVideoTrack(participantViewState)
+            } else if (ParticipantChange.SWITCHED_OFF in changes) {
+                setVideoState(participantViewState.videoTrack)
+            }
+        }
+    }
+
+    /* Stops rendering once the view is recycled, it is sinked again when it is bound. */
+    fun unbind() {
+        thumb.run {
+            removeSink(videoTrack, this)
+            videoTrack = null
+        }
+        renderSizeReporter.videoTrack = null
+    }
+
     private fun updateVideoTrack(participantViewState: ParticipantViewState) {
         thumb.run {
             val videoTrackViewState = participantViewState.videoTrack
@@ -54,6 +86,7 @@ internal class ParticipantViewHolder(internal val thumb: ParticipantThumbView) :
             if (videoTrack !== newVideoTrack) {
                 removeSink(videoTrack, this)
                 videoTrack = newVideoTrack
+                renderSizeReporter.videoTrack = newVideoTrack
                 videoTrack?.let { videoTrack ->
                     setVideoState(videoTrackViewState)
                     if (videoTrack.isEnabled) videoTrack.addSink(this.videoTextureView)
@@ -20,8 +20,10 @@ import com.twilio.video.app.sdk.VideoTrackViewState
 
 internal class PrimaryParticipantController(
     private val primaryView: ParticipantPrimaryView,
+    videoRenderSizes: VideoRenderSizes,
 ) {
     private var primaryItem: Item? = null
+    private val renderSizeReporter = VideoRenderSizeReporter(primaryView.videoTextureView, videoRenderSizes)
 
     var transcriptionText: String
         set(value) {
@@ -54,6 +56,7 @@ internal class PrimaryParticipantController(
         if (newVideoTrack != old?.videoTrack) {
             old?.let { removeSink(it.videoTrack, primaryView) }
             newVideoTrack?.let { if (it.isEnabled) it.addSink(primaryView.videoTextureView) }
+            renderSizeReporter.videoTrack = newVideoTrack
         }
 
         newVideoTrack?.let {
@@ -34,22 +34,29 @@ import android.os.Bundle
 import android.os.Handler
 import android.os.Looper
 import android.text.TextUtils
+import android.view.GestureDetector
 import android.view.Menu
 import android.view.MenuItem
+import android.view.MotionEvent
 import android.view.View
 import android.view.WindowManager
 import androidx.activity.viewModels
 import androidx.appcompat.app.AppCompatActivity
 import androidx.core.content.ContextCompat
 import androidx.core.widget.doOnTextChanged
+import androidx.drawerlayout.widget.DrawerLayout
 import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.RecyclerView
 import com.google.android.material.snackbar.BaseTransientBottomBar
 import com.google.android.material.snackbar.Snackbar
 import com.twilio.audioswitch.AudioDevice
 import com.twilio.audioswitch.AudioDevice.BluetoothHeadset
 import com.twilio.audioswitch.AudioDevice.Speakerphone
 import com.twilio.audioswitch.AudioDevice.WiredHeadset
+import com.twilio.video.BandwidthProfileMode
+import com.twilio.video.ClientTrackSwitchOffControl
 import com.twilio.video.LogLevel
+import com.twilio.video.VideoContentPreferencesMode
 import com.twilio.video.app.R
 import com.twilio.video.app.adapter.StatsListAdapter
 import com.twilio.video.app.data.Preferences
@@ -81,6 +88,8 @@ import com.twilio.video.app.ui.room.RoomViewEvent.PauseVirtualBackground
 import com.twilio.video.app.ui.room.RoomViewEvent.ResumeVirtualBackground
 import com.twilio.video.app.ui.room.RoomViewEvent.SelectAudioDevice
 import com.twilio.video.app.ui.room.RoomViewEvent.StartScreenCapture
+import com.twilio.video.app.ui.room.RoomViewEvent.StatsPreferenceChanged
+import com.twilio.video.app.ui.room.RoomViewEvent.StatsVisibilityChanged
 import com.twilio.video.app.ui.room.RoomViewEvent.StopScreenCapture
 import com.twilio.video.app.ui.room.RoomViewEvent.SwitchCamera
 import com.twilio.video.app.ui.room.RoomViewEvent.ToggleLocalAudio
@@ -92,8 +101,11 @@ import com.twilio.video.ktx.Video
 import dagger.hilt.android.AndroidEntryPoint
 import io.uniflow.android.livedata.onEvents
 import io.uniflow.android.livedata.onStates
+import kotlinx.coroutines.MainScope
+import kotlinx.coroutines.cancel
 import timber.log.Timber
 import javax.inject.Inject
+import kotlin.math.abs
 
 @AndroidEntryPoint
 class RoomActivity : AppCompatActivity() {
@@ -117,8 +129,18 @@ class RoomActivity : AppCompatActivity() {
     /** Coordinates participant thumbs and primary participant rendering.  */
     private lateinit var primaryParticipantController: PrimaryParticipantController
     private lateinit var participantAdapter: ParticipantAdapter
+    private lateinit var thumbnailLayoutManager: LinearLayoutManager
+    private val thumbnailScope = MainScope()
+    private val thumbnailSwitchOffController = ThumbnailSwitchOffController(thumbnailScope)
+    private var primaryParticipantSid: String? = null
+    private val videoRenderSizes = VideoRenderSizes()
+    private lateinit var gridAdapter: ParticipantAdapter
+    private lateinit var gridPager: ParticipantGridPager
+    private var isGridMode = false
+    private var gridThumbnails: List<ParticipantViewState> = emptyList()
     private lateinit var recordingAnimation: ObjectAnimator
     private val roomViewModel: RoomViewModel by viewModels()
+    private val roomViewStateSlices = RoomViewStateSlices()
 
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
@@ -142,6 +164,8 @@ class RoomActivity : AppCompatActivity() {
 
         // Grab views
         setupThumbnailRecyclerView()
+        setupParticipantGrid()
+        setupStatsDrawer()
 
         // Setup toolbar
         setSupportActionBar(binding.toolbar)
@@ -150,9 +174,10 @@ class RoomActivity : AppCompatActivity() {
         savedVolumeControlStream = volumeControlStream
 
         // Setup participant controller
-        primaryParticipantController = PrimaryParticipantController(binding.room.primaryVideo)
+        primaryParticipantController = PrimaryParticipantController(binding.room.primaryVideo, videoRenderSizes)
 
         setupRecordingAnimation()
+        setupRoomViewStateSlices()
 
         // setup handler
         activityHandler = Handler(Looper.myLooper()!!)
@@ -161,6 +186,7 @@ class RoomActivity : AppCompatActivity() {
     override fun onDestroy() {
         super.onDestroy()
         recordingAnimation.cancel()
+        thumbnailScope.cancel()
     }
 
     override fun onStart() {
@@ -172,6 +198,27 @@ class RoomActivity : AppCompatActivity() {
         super.onResume()
         displayName = sharedPreferences.getString(Preferences.DISPLAY_NAME, null)
         setTitle(displayName)
+        val enableStats = sharedPreferences.getBoolean(
+            Preferences.ENABLE_STATS,
+            Preferences.ENABLE_STATS_DEFAULT,
+        )
+        roomViewModel.processInput(StatsPreferenceChanged(enableStats))
+        isGridMode = sharedPreferences.get(
+            Preferences.BANDWIDTH_PROFILE_MODE,
+            Preferences.BANDWIDTH_PROFILE_MODE_DEFAULT,
+        ) == BandwidthProfileMode.GRID.name
+        val isManualTrackSwitchOff = sharedPreferences.get(
+            Preferences.BANDWIDTH_PROFILE_TRACK_SWITCH_OFF_CONTROL,
+            Preferences.BANDWIDTH_PROFILE_TRACK_SWITCH_OFF_CONTROL_DEFAULT,
+        ).uppercase() == ClientTrackSwitchOffControl.MANUAL.name
+        thumbnailSwitchOffController.isEnabled = isManualTrackSwitchOff && !isGridMode
+        gridPager.isManualTrackSwitchOff = isManualTrackSwitchOff
+        videoRenderSizes.isEnabled = sharedPreferences.get(
+            Preferences.BANDWIDTH_PROFILE_VIDEO_CONTENT_PREFERENCES_MODE,
+            Preferences.BANDWIDTH_PROFILE_VIDEO_CONTENT_PREFERENCES_MODE_DEFAULT,
+        ).uppercase() == VideoContentPreferencesMode.MANUAL.name
+        // The grid mode, stats and capturer effects preferences may have changed in the settings
+        roomViewStateSlices.rebind()
         roomViewModel.processInput(OnResume)
     }
 
@@ -210,6 +257,7 @@ class RoomActivity : AppCompatActivity() {
         screenCaptureMenuItem = menu.findItem(R.id.share_screen_menu_item)
         deviceMenuItem = menu.findItem(R.id.device_menu_item)
         pauseVirtualBackgroundMenuItem = menu.findItem(R.id.pause_vbackground_menu_item)
+        menu.findItem(R.id.event_latency_menu_item).isVisible = roomViewModel.roomEventTracer.isEnabled
 
         onStates(roomViewModel) { state ->
             if (state is RoomViewState) bindRoomViewState(state)
@@ -265,6 +313,10 @@ class RoomActivity : AppCompatActivity() {
                 }
                 true
             }
+            R.id.event_latency_menu_item -> {
+                showEventLatencyDialog()
+                true
+            }
             else -> super.onOptionsItemSelected(item)
         }
     }
@@ -324,13 +376,87 @@ class RoomActivity : AppCompatActivity() {
     }
 
     private fun setupThumbnailRecyclerView() {
-        val layoutManager = LinearLayoutManager(this, LinearLayoutManager.HORIZONTAL, false)
-        binding.room.remoteVideoThumbnails.layoutManager = layoutManager
-        participantAdapter = ParticipantAdapter()
+        thumbnailLayoutManager = LinearLayoutManager(this, LinearLayoutManager.HORIZONTAL, false)
+        binding.room.remoteVideoThumbnails.layoutManager = thumbnailLayoutManager
+        participantAdapter = ParticipantAdapter(videoRenderSizes)
         participantAdapter
             .viewHolderEvents
             .observe(this, { viewEvent: RoomViewEvent -> roomViewModel.processInput(viewEvent) })
         binding.room.remoteVideoThumbnails.adapter = participantAdapter
+        binding.room.remoteVideoThumbnails.addOnScrollListener(object : RecyclerView.OnScrollListener() {
+            override fun onScrolled(recyclerView: RecyclerView, dx: Int, dy: Int) {
+                updateThumbnailSwitchOffs()
+            }
+        })
+    }
+
+    private fun setupParticipantGrid() {
+        val columns = resources.getInteger(R.integer.participant_grid_columns)
+        val rows = resources.getInteger(R.integer.participant_grid_rows)
+        gridPager = ParticipantGridPager(columns * rows)
+        gridAdapter = ParticipantAdapter(videoRenderSizes, isGrid = true)
+        gridAdapter
+            .viewHolderEvents
+            .observe(this, { viewEvent: RoomViewEvent -> roomViewModel.processInput(viewEvent) })
+        binding.room.participantGrid.layoutManager = ParticipantGridLayoutManager(this, columns, rows)
+        binding.room.participantGrid.adapter = gridAdapter
+
+        // Pages are changed by swiping horizontally, taps still reach the tiles to pin them
+        val pageGestureDetector = GestureDetector(
+            this,
+            object : GestureDetector.SimpleOnGestureListener() {
+                override fun onFling(
+                    e1: MotionEvent?,
+                    e2: MotionEvent,
+                    velocityX: Float,
+                    velocityY: Float,
+                ): Boolean {
+                    if (abs(velocityX) < abs(velocityY)) return false
+                    val isPageChanged = if (velocityX < 0) gridPager.nextPage() else gridPager.previousPage()
+                    if (isPageChanged) renderGridPage()
+                    return isPageChanged
+                }
+            },
+        )
+        binding.room.participantGrid.addOnItemTouchListener(object : RecyclerView.SimpleOnItemTouchListener() {
+            override fun onInterceptTouchEvent(recyclerView: RecyclerView, event: MotionEvent): Boolean {
+                pageGestureDetector.onTouchEvent(event)
+                return false
+            }
+        })
+    }
+
+    private fun renderGridPage() {
+        gridAdapter.submitList(gridPager.page(gridThumbnails))
+        gridPager.updateTracks(gridThumbnails, primaryParticipantSid)
+        binding.room.participantGridPage.text =
+            getString(R.string.participant_grid_page, gridPager.page + 1, gridPager.pageCount)
+        binding.room.participantGridPage.visibility =
+            if (gridPager.pageCount > 1) View.VISIBLE else View.GONE
+    }
+
+    private fun updateThumbnailSwitchOffs() {
+        thumbnailSwitchOffController.update(
+            participantAdapter.currentList,
+            thumbnailLayoutManager.findFirstVisibleItemPosition(),
+            thumbnailLayoutManager.findLastVisibleItemPosition(),
+            primaryParticipantSid,
+        )
+    }
+
+    private fun setupStatsDrawer() {
+        statsListAdapter = StatsListAdapter(this)
+        binding.statsRecyclerView.adapter = statsListAdapter
+        binding.statsRecyclerView.layoutManager = LinearLayoutManager(this)
+        binding.navigationDrawer.addDrawerListener(object : DrawerLayout.SimpleDrawerListener() {
+            override fun onDrawerOpened(drawerView: View) {
+                roomViewModel.processInput(StatsVisibilityChanged(true))
+            }
+
+            override fun onDrawerClosed(drawerView: View) {
+                roomViewModel.processInput(StatsVisibilityChanged(false))
+            }
+        })
     }
 
     private fun roomNameTextChanged(text: CharSequence?) {
@@ -394,7 +520,15 @@ class RoomActivity : AppCompatActivity() {
         }
     }
 
-    private fun updateLayout(roomViewState: RoomViewState) {
+    private fun setupRoomViewStateSlices() {
+        roomViewStateSlices.observe(RoomViewState::participantsSlice, ::renderParticipants)
+        roomViewStateSlices.observe(RoomViewState::localControlsSlice, ::updateLayout)
+        roomViewStateSlices.observe(RoomViewState::audioDevicesSlice, ::updateAudioDevices)
+        roomViewStateSlices.observe(RoomViewState::statsSlice, ::updateStatsUI)
+        roomViewStateSlices.observe(RoomViewState::recordingSlice, ::updateRecordingIndicator)
+    }
+
+    private fun updateLayout(localControls: LocalControlsSlice) {
         var disconnectButtonState = View.GONE
         var joinRoomLayoutState = View.VISIBLE
         var joinStatusLayoutState = View.GONE
@@ -407,7 +541,7 @@ class RoomActivity : AppCompatActivity() {
         var toolbarTitle = displayName
         var joinStatus = ""
         var recordingWarningVisibility = View.GONE
-        when (roomViewState.configuration) {
+        when (localControls.configuration) {
             Connecting -> {
                 disconnectButtonState = View.VISIBLE
                 joinRoomLayoutState = View.GONE
@@ -427,30 +561,24 @@ class RoomActivity : AppCompatActivity() {
                 settingsMenuItemState = false
                 screenCaptureMenuItemState = true
                 connectButtonEnabled = false
-                roomName = roomViewState.title
+                roomName = localControls.title
                 toolbarTitle = roomName
                 joinStatus = ""
-                binding.recordingIndicator.visibility =
-                    if (roomViewState.isRecording) View.VISIBLE else View.GONE
             }
             Lobby -> {
                 connectButtonEnabled = isRoomTextNotEmpty
                 screenCaptureMenuItemState = false
-                binding.recordingIndicator.visibility = View.GONE
             }
         }
-        val isMicEnabled = roomViewState.isMicEnabled
-        val isCameraEnabled = roomViewState.isCameraEnabled
+        val isMicEnabled = localControls.isMicEnabled
+        val isCameraEnabled = localControls.isCameraEnabled
         val isLocalMediaEnabled = isMicEnabled && isCameraEnabled
         binding.localAudio.isEnabled = isLocalMediaEnabled
         binding.localVideo.isEnabled = isLocalMediaEnabled
-        val micDrawable = if (roomViewState.isAudioMuted || !isLocalMediaEnabled) R.drawable.ic_mic_off_gray_24px else R.drawable.ic_mic_white_24px
-        val videoDrawable = if (roomViewState.isVideoOff || !isLocalMediaEnabled) R.drawable.ic_videocam_off_gray_24px else R.drawable.ic_videocam_white_24px
+        val micDrawable = if (localControls.isAudioMuted || !isLocalMediaEnabled) R.drawable.ic_mic_off_gray_24px else R.drawable.ic_mic_white_24px
+        val videoDrawable = if (localControls.isVideoOff || !isLocalMediaEnabled) R.drawable.ic_videocam_off_gray_24px else R.drawable.ic_videocam_white_24px
         binding.localAudio.setImageResource(micDrawable)
         binding.localVideo.setImageResource(videoDrawable)
-        statsListAdapter = StatsListAdapter(this)
-        binding.statsRecyclerView.adapter = statsListAdapter
-        binding.statsRecyclerView.layoutManager = LinearLayoutManager(this)
         binding.disconnect.visibility = disconnectButtonState
         binding.joinRoom.joinRoomLayout.visibility = joinRoomLayoutState
         binding.joinStatusLayout.visibility = joinStatusLayoutState
@@ -459,9 +587,9 @@ class RoomActivity : AppCompatActivity() {
         binding.joinStatus.text = joinStatus
         binding.joinRoomName.text = roomName
         binding.recordingNotice.visibility = recordingWarningVisibility
-        val pauseAudioTitle = getString(if (roomViewState.isAudioEnabled) R.string.pause_audio else R.string.resume_audio)
-        val pauseVideoTitle = getString(if (roomViewState.isVideoEnabled) R.string.pause_video else R.string.resume_video)
-        val pauseVirtualBackgroundTitle = getString(if (!roomViewState.isVirtualBackgroundPaused) R.string.pause_vbackground else R.string.resume_vbackground)
+        val pauseAudioTitle = getString(if (localControls.isAudioEnabled) R.string.pause_audio else R.string.resume_audio)
+        val pauseVideoTitle = getString(if (localControls.isVideoEnabled) R.string.pause_video else R.string.resume_video)
+        val pauseVirtualBackgroundTitle = getString(if (!localControls.isVirtualBackgroundPaused) R.string.pause_vbackground else R.string.resume_vbackground)
         pauseAudioMenuItem.title = pauseAudioTitle
         pauseVideoMenuItem.title = pauseVideoTitle
         pauseVirtualBackgroundMenuItem.title = pauseVirtualBackgroundTitle
@@ -475,7 +603,7 @@ class RoomActivity : AppCompatActivity() {
         // TODO: Remove when we use a Service to obtainTokenAndConnect to a room
         settingsMenuItem.isVisible = settingsMenuItemState
         screenCaptureMenuItem.isVisible = screenCaptureMenuItemState
-        val screenCaptureResources = if (roomViewState.isScreenCaptureOn) {
+        val screenCaptureResources = if (localControls.isScreenCaptureOn) {
             R.drawable.ic_stop_screen_share_white_24dp to getString(R.string.stop_screen_share)
         } else {
             R.drawable.ic_screen_share_white_24dp to getString(R.string.share_screen)
@@ -487,6 +615,15 @@ class RoomActivity : AppCompatActivity() {
         screenCaptureMenuItem.title = screenCaptureResources.second
     }
 
+    private fun updateRecordingIndicator(recording: RecordingSlice) {
+        when (recording.configuration) {
+            RoomViewConfiguration.Connected -> binding.recordingIndicator.visibility =
+                if (recording.isRecording) View.VISIBLE else View.GONE
+            Lobby -> binding.recordingIndicator.visibility = View.GONE
+            Connecting -> {}
+        }
+    }
+
     private fun setTitle(toolbarTitle: String?) {
         val actionBar = supportActionBar
         if (actionBar != null) {
@@ -516,23 +653,20 @@ class RoomActivity : AppCompatActivity() {
         )
     }
 
-    private fun updateStatsUI(roomViewState: RoomViewState) {
+    private fun updateStatsUI(stats: StatsSlice) {
         val enableStats = sharedPreferences.getBoolean(
             Preferences.ENABLE_STATS,
             Preferences.ENABLE_STATS_DEFAULT,
         )
         if (enableStats) {
-            when (roomViewState.configuration) {
+            when (stats.configuration) {
                 RoomViewConfiguration.Connected -> {
-                    statsListAdapter.updateStatsData(roomViewState.roomStats)
+                    statsListAdapter.updateStatsData(stats.roomStats)
                     binding.statsRecyclerView.visibility = View.VISIBLE
                     binding.statsDisabled.visibility = View.GONE
 
                     // disable stats if there is room but no participants (no media)
-                    val isStreamingMedia = roomViewState.participantThumbnails?.let { thumbnails ->
-                        thumbnails.size > 1
-                    } ?: false
-                    if (!isStreamingMedia) {
+                    if (!stats.isStreamingMedia) {
                         binding.statsDisabledTitle.text = getString(R.string.stats_unavailable)
                         binding.statsDisabledDescription.text = getString(R.string.stats_description_media_not_shared)
                         binding.statsRecyclerView.visibility = View.GONE
@@ -561,12 +695,23 @@ class RoomActivity : AppCompatActivity() {
     }
 
     private fun bindRoomViewState(roomViewState: RoomViewState) {
-        deviceMenuItem.isVisible = roomViewState.availableAudioDevices?.isNotEmpty() ?: false
-        renderPrimaryView(roomViewState.primaryParticipant)
-        renderThumbnails(roomViewState)
-        updateLayout(roomViewState)
-        updateAudioDeviceIcon(roomViewState.selectedDevice)
-        updateStatsUI(roomViewState)
+        val roomEventTracer = roomViewModel.roomEventTracer
+        roomEventTracer.section("bindRoomViewState") {
+            roomViewStateSlices.update(roomViewState)
+        }
+        roomEventTracer.bound()
+    }
+
+    private fun showEventLatencyDialog() {
+        val roomEventTracer = roomViewModel.roomEventTracer
+        val latencies = roomEventTracer.dump()
+        Timber.i("Room event latency since the SDK callback:\n%s", latencies)
+        AlertDialog.Builder(this, R.style.AppTheme_Dialog)
+            .setTitle(R.string.event_latency)
+            .setMessage(latencies.ifEmpty { getString(R.string.event_latency_empty) })
+            .setPositiveButton(android.R.string.ok, null)
+            .setNeutralButton(R.string.event_latency_reset) { _, _ -> roomEventTracer.reset() }
+            .show()
     }
 
     private fun bindRoomViewEffects(roomViewEffect: RoomViewEffect) {
@@ -623,6 +768,11 @@ class RoomActivity : AppCompatActivity() {
             },
         )
 
+    private fun updateAudioDevices(audioDevices: AudioDevicesSlice) {
+        deviceMenuItem.isVisible = audioDevices.availableAudioDevices?.isNotEmpty() ?: false
+        updateAudioDeviceIcon(audioDevices.selectedDevice)
+    }
+
     private fun updateAudioDeviceIcon(selectedAudioDevice: AudioDevice?) {
         val audioDeviceMenuIcon = when (selectedAudioDevice) {
             is BluetoothHeadset -> R.drawable.ic_bluetooth_white_24dp
@@ -633,12 +783,13 @@ class RoomActivity : AppCompatActivity() {
         this.deviceMenuItem.setIcon(audioDeviceMenuIcon)
     }
 
-    private fun renderPrimaryView(primaryParticipant: ParticipantViewState) {
+    private fun renderPrimaryView(primaryParticipant: ParticipantViewState, isGridShown: Boolean) {
         primaryParticipant.run {
+            // The primary view is hidden in grid mode, so it must not keep a track sinked
             primaryParticipantController.renderAsPrimary(
                 if (isLocalParticipant) getString(R.string.you) else identity,
-                screenTrack,
-                videoTrack,
+                screenTrack.takeUnless { isGridShown },
+                videoTrack.takeUnless { isGridShown },
                 isMuted,
                 isMirrored,
             )
@@ -646,13 +797,33 @@ class RoomActivity : AppCompatActivity() {
         }
     }
 
-    private fun renderThumbnails(roomViewState: RoomViewState) {
-        val newThumbnails = if (roomViewState.configuration is RoomViewConfiguration.Connected) {
-            roomViewState.participantThumbnails
+    private fun renderParticipants(participants: ParticipantsSlice) {
+        renderPrimaryView(participants.primaryParticipant, isGridMode && participants.isConnected)
+        renderThumbnails(participants)
+    }
+
+    private fun renderThumbnails(participants: ParticipantsSlice) {
+        val newThumbnails = if (participants.isConnected) participants.participantThumbnails else null
+        primaryParticipantSid = participants.primaryParticipant.sid
+        val isGridShown = isGridMode && participants.isConnected
+        binding.room.primaryVideo.visibility = if (isGridShown) View.GONE else View.VISIBLE
+        binding.room.remoteVideoThumbnails.visibility = if (isGridShown) View.GONE else View.VISIBLE
+        binding.room.participantGrid.visibility = if (isGridShown) View.VISIBLE else View.GONE
+        if (isGridShown) {
+            participantAdapter.submitList(null)
+            gridThumbnails = newThumbnails ?: emptyList()
+            renderGridPage()
         } else {
-            null
+            if (gridThumbnails.isNotEmpty() || gridAdapter.itemCount > 0) {
+                gridThumbnails = emptyList()
+                gridAdapter.submitList(null)
+                gridPager.clear()
+                binding.room.participantGridPage.visibility = View.GONE
+            }
+            participantAdapter.submitList(newThumbnails) {
+                binding.room.remoteVideoThumbnails.post { updateThumbnailSwitchOffs() }
+            }
         }
-        participantAdapter.submitList(newThumbnails)
     }
 
     private fun displayAudioDeviceList() {
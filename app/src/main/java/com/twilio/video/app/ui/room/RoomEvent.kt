@@ -5,7 +5,10 @@ import com.twilio.video.Participant
 import com.twilio.video.Room
 import com.twilio.video.VideoTrack
 import com.twilio.video.app.data.api.AuthServiceError
-import com.twilio.video.app.sdk.RoomStats
+import com.twilio.video.app.sdk.QoeScore
+import com.twilio.video.app.sdk.TrackQoeScore
+import com.twilio.video.app.sdk.VideoFreeze
+import com.twilio.video.app.sdk.toParticipantScores
 
 sealed class RoomEvent {
 
@@ -22,8 +25,12 @@ sealed class RoomEvent {
     object RecordingStopped : RoomEvent()
     data class TokenError(val serviceError: AuthServiceError? = null) : RoomEvent()
     data class DominantSpeakerChanged(val newDominantSpeakerSid: String?) : RoomEvent()
-    data class StatsUpdate(val roomStats: RoomStats) : RoomEvent()
     data class Transcription(val text: String) : RoomEvent()
+    data class QoeScoresChanged(val trackScores: Map<String, TrackQoeScore>) : RoomEvent() {
+        val qoeScores: Map<String, QoeScore> = trackScores.toParticipantScores()
+    }
+    data class VideoFreezeStarted(val videoFreeze: VideoFreeze) : RoomEvent()
+    data class VideoFreezeEnded(val videoFreeze: VideoFreeze) : RoomEvent()
 
     sealed class RemoteParticipantEvent : RoomEvent() {
 
@@ -0,0 +1,87 @@
+package com.twilio.video.app.ui.room
+
+import com.twilio.video.app.sdk.TracedRoomEvent
+import com.twilio.video.app.ui.room.RoomEvent.QoeScoresChanged
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.MuteRemoteParticipant
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.NetworkQualityLevelChange
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.TrackSwitchOff
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.channels.ProducerScope
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.channelFlow
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+
+/* One frame at 60 fps. */
+const val ROOM_EVENT_COALESCING_WINDOW_MS = 16L
+
+/*
+ * Groups RoomEvents that arrive within windowMs of the first one into a single batch, so a burst
+ * of participant updates results in one state change. Status updates of a participant that are
+ * superseded by a newer one of the same kind in the same batch are dropped and passed to
+ * onSuperseded. Any other event ends
+ * the current batch and is emitted on its own, so connection and participant lifecycle events are
+ * never merged and keep their order relative to the status updates. Events keep the trace of
+ * their send, a superseded event is passed on with its own.
+ */
+class RoomEventCoalescer(private val windowMs: Long = ROOM_EVENT_COALESCING_WINDOW_MS) {
+
+    fun coalesce(
+        roomEvents: Flow<TracedRoomEvent>,
+        onSuperseded: (TracedRoomEvent) -> Unit = {},
+    ): Flow<List<TracedRoomEvent>> {
+        if (windowMs <= 0) return roomEvents.map { listOf(it) }
+        return channelFlow {
+            val mutex = Mutex()
+            val pendingEvents = LinkedHashMap<Any, TracedRoomEvent>()
+            var flushJob: Job? = null
+
+            roomEvents.collect { roomEvent ->
+                mutex.withLock {
+                    val coalescingKey = roomEvent.roomEvent.coalescingKey()
+                    if (coalescingKey == null) {
+                        flushJob?.cancel()
+                        flushJob = null
+                        sendPendingEvents(pendingEvents)
+                        send(listOf(roomEvent))
+                    } else {
+                        pendingEvents.put(coalescingKey, roomEvent)?.let(onSuperseded)
+                        if (flushJob == null) {
+                            flushJob = launch {
+                                delay(windowMs)
+                                mutex.withLock {
+                                    flushJob = null
+                                    sendPendingEvents(pendingEvents)
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            mutex.withLock {
+                flushJob?.cancel()
+                sendPendingEvents(pendingEvents)
+            }
+        }
+    }
+
+    private suspend fun ProducerScope<List<TracedRoomEvent>>.sendPendingEvents(
+        pendingEvents: LinkedHashMap<Any, TracedRoomEvent>,
+    ) {
+        if (pendingEvents.isEmpty()) return
+        val roomEvents = pendingEvents.values.toList()
+        pendingEvents.clear()
+        send(roomEvents)
+    }
+
+    private fun RoomEvent.coalescingKey(): Any? = when (this) {
+        is NetworkQualityLevelChange -> NetworkQualityLevelChange::class to sid
+        is MuteRemoteParticipant -> MuteRemoteParticipant::class to sid
+        is TrackSwitchOff -> TrackSwitchOff::class to sid
+        is QoeScoresChanged -> QoeScoresChanged::class
+        else -> null
+    }
+}
@@ -25,4 +25,6 @@ sealed class RoomViewEvent {
     object Disconnect : RoomViewEvent()
     object ResumeVirtualBackground : RoomViewEvent()
     object PauseVirtualBackground : RoomViewEvent()
+    data class StatsVisibilityChanged(val isVisible: Boolean) : RoomViewEvent()
+    data class StatsPreferenceChanged(val isEnabled: Boolean) : RoomViewEvent()
 }
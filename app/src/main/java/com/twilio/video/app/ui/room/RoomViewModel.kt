@@ -7,9 +7,14 @@ import androidx.lifecycle.ViewModelProvider
 import androidx.lifecycle.viewModelScope
 import com.twilio.audioswitch.AudioSwitch
 import com.twilio.video.Participant
+import com.twilio.video.app.data.Preferences
 import com.twilio.video.app.participant.ParticipantManager
 import com.twilio.video.app.participant.buildParticipantViewState
+import com.twilio.video.app.sdk.RoomEventTrace
+import com.twilio.video.app.sdk.RoomEventTracer
 import com.twilio.video.app.sdk.RoomManager
+import com.twilio.video.app.sdk.StatsPollingPolicy
+import com.twilio.video.app.sdk.TracedRoomEvent
 import com.twilio.video.app.sdk.VideoTrackViewState
 import com.twilio.video.app.ui.room.RoomEvent.ConnectFailure
 import com.twilio.video.app.ui.room.RoomEvent.Connected
@@ -28,6 +33,7 @@ import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.VideoEnabled
 import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.VirtualBackgroundPaused
 import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.VirtualBackgroundResumed
 import com.twilio.video.app.ui.room.RoomEvent.MaxParticipantFailure
+import com.twilio.video.app.ui.room.RoomEvent.QoeScoresChanged
 import com.twilio.video.app.ui.room.RoomEvent.RecordingStarted
 import com.twilio.video.app.ui.room.RoomEvent.RecordingStopped
 import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent
@@ -37,8 +43,9 @@ import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.RemoteParti
 import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.RemoteParticipantDisconnected
 import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.ScreenTrackUpdated
 import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.TrackSwitchOff
-import com.twilio.video.app.ui.room.RoomEvent.StatsUpdate
 import com.twilio.video.app.ui.room.RoomEvent.TokenError
+import com.twilio.video.app.ui.room.RoomEvent.VideoFreezeEnded
+import com.twilio.video.app.ui.room.RoomEvent.VideoFreezeStarted
 import com.twilio.video.app.ui.room.RoomViewConfiguration.Lobby
 import com.twilio.video.app.ui.room.RoomViewEffect.PermissionsDenied
 import com.twilio.video.app.ui.room.RoomViewEffect.ShowConnectFailureDialog
@@ -60,6 +67,8 @@ import com.twilio.video.app.ui.room.RoomViewEvent.ResumeVirtualBackground
 import com.twilio.video.app.ui.room.RoomViewEvent.ScreenTrackRemoved
 import com.twilio.video.app.ui.room.RoomViewEvent.SelectAudioDevice
 import com.twilio.video.app.ui.room.RoomViewEvent.StartScreenCapture
+import com.twilio.video.app.ui.room.RoomViewEvent.StatsPreferenceChanged
+import com.twilio.video.app.ui.room.RoomViewEvent.StatsVisibilityChanged
 import com.twilio.video.app.ui.room.RoomViewEvent.StopScreenCapture
 import com.twilio.video.app.ui.room.RoomViewEvent.SwitchCamera
 import com.twilio.video.app.ui.room.RoomViewEvent.ToggleLocalAudio
@@ -68,10 +77,11 @@ import com.twilio.video.app.ui.room.RoomViewEvent.VideoTrackRemoved
 import com.twilio.video.app.util.PermissionUtil
 import dagger.hilt.android.lifecycle.HiltViewModel
 import io.uniflow.android.AndroidDataFlow
-import io.uniflow.core.flow.data.UIState
 import io.uniflow.core.flow.onState
 import kotlinx.coroutines.Job
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.collect
+import kotlinx.coroutines.flow.filterNotNull
 import kotlinx.coroutines.launch
 import timber.log.Timber
 import javax.inject.Inject
@@ -83,12 +93,24 @@ class RoomViewModel @Inject constructor(
     private val permissionUtil: PermissionUtil,
     private val participantManager: ParticipantManager = ParticipantManager(),
     initialViewState: RoomViewState = RoomViewState(participantManager.primaryParticipant),
+    private val roomEventCoalescer: RoomEventCoalescer = RoomEventCoalescer(0),
+    frameScheduler: FrameScheduler = FrameScheduler.Immediate,
 ) : AndroidDataFlow(defaultState = initialViewState) {
 
     private var permissionCheckRetry = false
+    private var isInForeground = false
+    private var isStatsVisible = false
+    private var isStatsEnabled = Preferences.ENABLE_STATS_DEFAULT
 
     @VisibleForTesting(otherwise = VisibleForTesting.PRIVATE)
     internal var roomManagerJob: Job? = null
+    private var pendingDominantSpeakerJob: Job? = null
+    private var isParticipantViewStateDeferred = false
+    private var isParticipantViewStateStale = false
+    @Volatile
+    private var observedRoomEventTraces = emptyList<RoomEventTrace>()
+    val roomEventTracer: RoomEventTracer get() = roomManager.roomEventTracer
+    private val roomViewStateCommitter = RoomViewStateCommitter(frameScheduler, ::commitState)
 
     init {
         subscribeToRoomEvents()
@@ -106,8 +128,24 @@ class RoomViewModel @Inject constructor(
         Timber.d("View Event: $viewEvent")
 
         when (viewEvent) {
-            OnResume -> checkPermissions()
-            OnPause -> roomManager.onPause()
+            OnResume -> {
+                isInForeground = true
+                updateStatsPollingPolicy()
+                checkPermissions()
+            }
+            OnPause -> {
+                isInForeground = false
+                updateStatsPollingPolicy()
+                roomManager.onPause()
+            }
+            is StatsVisibilityChanged -> {
+                isStatsVisible = viewEvent.isVisible
+                updateStatsPollingPolicy()
+            }
+            is StatsPreferenceChanged -> {
+                isStatsEnabled = viewEvent.isEnabled
+                updateStatsPollingPolicy()
+            }
             is SelectAudioDevice -> {
                 audioSwitch.selectDevice(viewEvent.device)
             }
@@ -151,14 +189,26 @@ class RoomViewModel @Inject constructor(
     }
 
     private fun subscribeToRoomEvents() {
-        roomManager.roomEvents.let { sharedFlow ->
-            roomManagerJob = viewModelScope.launch {
+        roomManagerJob = viewModelScope.launch {
+            launch {
                 Timber.d("Listening for RoomEvents")
-                sharedFlow.collect { observeRoomEvents(it) }
+                roomEventCoalescer.coalesce(roomManager.roomEvents) { roomEventTracer.discarded(it.trace) }
+                    .collect { observeRoomEvents(it) }
+            }
+            launch {
+                roomManager.roomStats.filterNotNull().collect { roomStats ->
+                    updateState { currentState -> currentState.copy(roomStats = roomStats) }
+                }
             }
         }
     }
 
+    private fun updateStatsPollingPolicy() {
+        roomManager.updateStatsPollingPolicy(
+            StatsPollingPolicy.from(isStatsEnabled, isStatsVisible, isInForeground),
+        )
+    }
+
     private fun checkPermissions() {
         val isCameraEnabled = permissionUtil.isPermissionGranted(permission.CAMERA)
         val isMicEnabled = permissionUtil.isPermissionGranted(permission.RECORD_AUDIO)
@@ -190,8 +240,30 @@ class RoomViewModel @Inject constructor(
         }
     }
 
-    private fun observeRoomEvents(roomEvent: RoomEvent) {
-        Timber.d("observeRoomEvents: %s", roomEvent)
+    /*
+     * A batch of coalesced events results in a single participant state change.
+     */
+    private fun observeRoomEvents(roomEvents: List<TracedRoomEvent>) = roomEventTracer.section("observeRoomEvents") {
+        observedRoomEventTraces = roomEventTracer.observed(roomEvents.mapNotNull { it.trace })
+        try {
+            if (roomEvents.size == 1) {
+                observeRoomEvent(roomEvents[0].roomEvent)
+            } else {
+                isParticipantViewStateDeferred = true
+                try {
+                    participantManager.batch { roomEvents.forEach { observeRoomEvent(it.roomEvent) } }
+                } finally {
+                    isParticipantViewStateDeferred = false
+                }
+                if (isParticipantViewStateStale) updateParticipantViewState()
+            }
+        } finally {
+            observedRoomEventTraces = emptyList()
+        }
+    }
+
+    private fun observeRoomEvent(roomEvent: RoomEvent) {
+        Timber.d("observeRoomEvent: %s", roomEvent)
         when (roomEvent) {
             is Connecting -> {
                 showConnectingViewState()
@@ -205,28 +277,34 @@ class RoomViewModel @Inject constructor(
             is DominantSpeakerChanged -> {
                 participantManager.changeDominantSpeaker(roomEvent.newDominantSpeakerSid)
                 updateParticipantViewState()
+                applyPendingDominantSpeaker()
             }
-            is ConnectFailure -> action {
-                sendEvent {
-                    showLobbyViewState()
-                    ShowConnectFailureDialog
-                }
+            is ConnectFailure -> {
+                action { sendEvent { ShowConnectFailureDialog } }
+                showLobbyViewState()
             }
-            is MaxParticipantFailure -> action {
-                sendEvent { ShowMaxParticipantFailureDialog }
+            is MaxParticipantFailure -> {
+                action { sendEvent { ShowMaxParticipantFailureDialog } }
                 showLobbyViewState()
             }
-            is TokenError -> action {
-                sendEvent {
-                    showLobbyViewState()
-                    ShowTokenErrorDialog(roomEvent.serviceError)
-                }
+            is TokenError -> {
+                action { sendEvent { ShowTokenErrorDialog(roomEvent.serviceError) } }
+                showLobbyViewState()
             }
             RecordingStarted -> updateState { currentState -> currentState.copy(isRecording = true) }
             RecordingStopped -> updateState { currentState -> currentState.copy(isRecording = false) }
             is RemoteParticipantEvent -> handleRemoteParticipantEvent(roomEvent)
             is LocalParticipantEvent -> handleLocalParticipantEvent(roomEvent)
-            is StatsUpdate -> updateState { currentState -> currentState.copy(roomStats = roomEvent.roomStats) }
+            is QoeScoresChanged -> {
+                participantManager.batch {
+                    participantThumbnails.forEach { participant ->
+                        participant.sid?.let { sid -> updateQoeScore(sid, roomEvent.qoeScores[sid]) }
+                    }
+                }
+                updateParticipantViewState()
+            }
+            is VideoFreezeStarted -> Timber.i("Video freeze started: %s", roomEvent.videoFreeze)
+            is VideoFreezeEnded -> Timber.i("Video freeze ended: %s", roomEvent.videoFreeze)
             is RoomEvent.Transcription -> action {
                 sendEvent {
                     RoomViewEffect.Transcription(roomEvent.text)
@@ -316,10 +394,27 @@ class RoomViewModel @Inject constructor(
         updateState { currentState ->
             currentState.copy(configuration = Lobby)
         }
+        pendingDominantSpeakerJob?.cancel()
         participantManager.clearRemoteParticipants()
         updateParticipantViewState()
     }
 
+    /*
+     * Applies a dominant speaker change that the DominantSpeakerPolicy held back once it is
+     * allowed, unless a newer dominant speaker change arrives first.
+     */
+    private fun applyPendingDominantSpeaker() {
+        pendingDominantSpeakerJob?.cancel()
+        if (participantManager.pendingDominantSpeakerDelayMs == null) return
+        pendingDominantSpeakerJob = viewModelScope.launch {
+            while (true) {
+                delay(participantManager.pendingDominantSpeakerDelayMs ?: break)
+                participantManager.applyPendingDominantSpeaker()
+                updateParticipantViewState()
+            }
+        }
+    }
+
     private fun showConnectingViewState() {
         updateState { currentState ->
             currentState.copy(configuration = RoomViewConfiguration.Connecting)
@@ -333,22 +428,28 @@ class RoomViewModel @Inject constructor(
     }
 
     private fun checkParticipants(participants: List<Participant>) {
-        for ((index, participant) in participants.withIndex()) {
-            if (index == 0) { // local participant
-                participantManager.updateLocalParticipantSid(participant.sid)
-            } else {
-                participantManager.addParticipant(buildParticipantViewState(participant))
+        participantManager.batch {
+            for ((index, participant) in participants.withIndex()) {
+                if (index == 0) { // local participant
+                    updateLocalParticipantSid(participant.sid)
+                } else {
+                    addParticipant(buildParticipantViewState(participant))
+                }
             }
         }
         updateParticipantViewState()
     }
 
     private fun updateParticipantViewState() {
+        if (isParticipantViewStateDeferred) {
+            isParticipantViewStateStale = true
+            return
+        }
+        isParticipantViewStateStale = false
+        val participantThumbnails = participantManager.participantThumbnails
+        val primaryParticipant = participantManager.primaryParticipant
         updateState { currentState ->
-            currentState.copy(
-                participantThumbnails = participantManager.participantThumbnails,
-                primaryParticipant = participantManager.primaryParticipant,
-            )
+            currentState.copy(participantThumbnails = participantThumbnails, primaryParticipant = primaryParticipant)
         }
     }
 
@@ -360,8 +461,26 @@ class RoomViewModel @Inject constructor(
             )
         }
 
-    private fun updateState(action: (currentState: RoomViewState) -> UIState) =
-        action { onState<RoomViewState> { currentState -> setState { action(currentState) } } }
+    /*
+     * State changes are committed at most once per frame by the RoomViewStateCommitter, which
+     * also defines their threading. Those made while handling RoomEvents are attributed to them by
+     * the tracer when they are committed.
+     */
+    private fun updateState(reducer: (currentState: RoomViewState) -> RoomViewState) {
+        roomViewStateCommitter.update(observedRoomEventTraces, reducer)
+    }
+
+    private fun commitState(
+        reducer: (currentState: RoomViewState) -> RoomViewState,
+        roomEventTraces: List<RoomEventTrace>,
+    ) {
+        action {
+            onState<RoomViewState> { currentState ->
+                roomEventTracer.stateUpdated(roomEventTraces)
+                setState { reducer(currentState) }
+            }
+        }
+    }
 
     @Suppress("UNCHECKED_CAST")
     class RoomViewModelFactory(
@@ -3,6 +3,7 @@ package com.twilio.video.app.ui.room
 import android.app.Application
 import com.twilio.audioswitch.AudioDevice
 import com.twilio.audioswitch.AudioSwitch
+import com.twilio.video.app.participant.DominantSpeakerPolicy
 import com.twilio.video.app.participant.ParticipantManager
 import com.twilio.video.app.util.PermissionUtil
 import dagger.Module
@@ -21,7 +22,15 @@ class RoomViewModelModule {
 
     @Provides
     @ViewModelScoped
-    fun providesParticipantManager() = ParticipantManager()
+    fun providesParticipantManager() = ParticipantManager(DominantSpeakerPolicy.DAMPED)
+
+    @Provides
+    @ViewModelScoped
+    fun providesRoomEventCoalescer() = RoomEventCoalescer()
+
+    @Provides
+    @ViewModelScoped
+    fun providesFrameScheduler(): FrameScheduler = ChoreographerFrameScheduler()
 
     @Provides
     @ViewModelScoped
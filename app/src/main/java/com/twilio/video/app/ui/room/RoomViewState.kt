@@ -25,7 +25,79 @@ data class RoomViewState(
     val isRecording: Boolean = false,
     val roomStats: RoomStats? = null,
     val isVirtualBackgroundPaused: Boolean = false,
-) : UIState()
+) : UIState() {
+
+    /* The slices rendered by separate regions of the room screen, see RoomViewStateSlices. */
+    val participantsSlice: ParticipantsSlice
+        get() = ParticipantsSlice(
+            primaryParticipant,
+            participantThumbnails,
+            configuration is RoomViewConfiguration.Connected,
+        )
+
+    val localControlsSlice: LocalControlsSlice
+        get() = LocalControlsSlice(
+            title,
+            configuration,
+            isCameraEnabled,
+            isMicEnabled,
+            isAudioMuted,
+            isAudioEnabled,
+            isVideoEnabled,
+            isVideoOff,
+            isScreenCaptureOn,
+            isVirtualBackgroundPaused,
+        )
+
+    val audioDevicesSlice: AudioDevicesSlice
+        get() = AudioDevicesSlice(selectedDevice, availableAudioDevices)
+
+    val statsSlice: StatsSlice
+        get() = StatsSlice(
+            configuration,
+            roomStats,
+            participantThumbnails?.let { thumbnails -> thumbnails.size > 1 } ?: false,
+        )
+
+    val recordingSlice: RecordingSlice
+        get() = RecordingSlice(configuration, isRecording)
+}
+
+data class ParticipantsSlice(
+    val primaryParticipant: ParticipantViewState,
+    val participantThumbnails: List<ParticipantViewState>?,
+    val isConnected: Boolean,
+)
+
+data class LocalControlsSlice(
+    val title: String?,
+    val configuration: RoomViewConfiguration,
+    val isCameraEnabled: Boolean,
+    val isMicEnabled: Boolean,
+    val isAudioMuted: Boolean,
+    val isAudioEnabled: Boolean,
+    val isVideoEnabled: Boolean,
+    val isVideoOff: Boolean,
+    val isScreenCaptureOn: Boolean,
+    val isVirtualBackgroundPaused: Boolean,
+)
+
+data class AudioDevicesSlice(
+    val selectedDevice: AudioDevice?,
+    val availableAudioDevices: List<AudioDevice>?,
+)
+
+/* Only whether media is streaming matters to the stats drawer, not the thumbnails themselves. */
+data class StatsSlice(
+    val configuration: RoomViewConfiguration,
+    val roomStats: RoomStats?,
+    val isStreamingMedia: Boolean,
+)
+
+data class RecordingSlice(
+    val configuration: RoomViewConfiguration,
+    val isRecording: Boolean,
+)
 
 sealed class RoomViewConfiguration {
     object Connecting : RoomViewConfiguration()
@@ -0,0 +1,72 @@
+package com.twilio.video.app.ui.room
+
+import com.twilio.video.app.sdk.RoomEventTrace
+
+/*
+ * Accumulates the RoomViewState updates made between two display frames and hands them to commit
+ * as a single reducer at the start of the next frame, so handling an event that updates the state
+ * several times publishes one state and renders once. Updates keep their order and each one sees
+ * the result of the previous ones, as if they had been committed one by one. The traces of the
+ * RoomEvents an update was made for are handed to commit together with the reducer.
+ *
+ * This is the threading contract of every RoomViewState update: update may be called from any
+ * thread, the pending reducers and traces are guarded by the committer's lock. commit runs on the
+ * thread the frame scheduler calls back on, the main thread for the ChoreographerFrameScheduler,
+ * and outside of the lock so it can update again. As reducers run later, on the committing thread,
+ * they must only use values captured when update was called.
+ */
+class RoomViewStateCommitter(
+    private val frameScheduler: FrameScheduler,
+    private val commit: (
+        reducer: (RoomViewState) -> RoomViewState,
+        roomEventTraces: List<RoomEventTrace>,
+    ) -> Unit,
+) {
+
+    private var pendingReducers = ArrayList<(RoomViewState) -> RoomViewState>()
+    private var pendingRoomEventTraces = ArrayList<RoomEventTrace>()
+    private var isFrameScheduled = false
+    @Volatile
+    var updateCount = 0L
+        private set
+
+    @Volatile
+    var commitCount = 0L
+        private set
+
+    fun update(
+        roomEventTraces: List<RoomEventTrace> = emptyList(),
+        reducer: (RoomViewState) -> RoomViewState,
+    ) {
+        synchronized(this) {
+            updateCount++
+            pendingReducers.add(reducer)
+            pendingRoomEventTraces.addAll(roomEventTraces)
+            if (isFrameScheduled) return
+            isFrameScheduled = true
+        }
+        frameScheduler.postFrameCallback(::commitPendingReducers)
+    }
+
+    private fun commitPendingReducers() {
+        val reducers: List<(RoomViewState) -> RoomViewState>
+        val roomEventTraces: List<RoomEventTrace>
+        synchronized(this) {
+            isFrameScheduled = false
+            reducers = pendingReducers
+            if (reducers.isEmpty()) return
+            roomEventTraces = pendingRoomEventTraces
+            pendingReducers = ArrayList()
+            pendingRoomEventTraces = ArrayList()
+            commitCount++
+        }
+        if (reducers.size == 1) {
+            commit(reducers[0], roomEventTraces)
+        } else {
+            val reducer = { state: RoomViewState ->
+                reducers.fold(state) { reducedState, reducer -> reducer(reducedState) }
+            }
+            commit(reducer, roomEventTraces)
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.twilio.video.app.ui.room
+
+/*
+ * Splits every RoomViewState into slices and calls the observer of a slice only when it differs
+ * from the slice it was last called with, so a stats update does not rebind the video tiles and a
+ * dominant speaker change does not rebind the toolbar. Slices are compared with equals, which for
+ * the participant thumbnails is an identity check as long as ParticipantManager did not rebuild
+ * its snapshot.
+ *
+ * rebind calls every observer again with the last state, for when something the observers read
+ * outside of the state, like the preferences, may have changed.
+ */
+class RoomViewStateSlices {
+
+    private val slices = ArrayList<Slice<*>>()
+    private var lastRoomViewState: RoomViewState? = null
+
+    fun <T> observe(selector: (RoomViewState) -> T, observer: (T) -> Unit) {
+        slices.add(Slice(selector, observer))
+    }
+
+    fun update(roomViewState: RoomViewState) {
+        lastRoomViewState = roomViewState
+        slices.forEach { it.update(roomViewState, false) }
+    }
+
+    fun rebind() {
+        lastRoomViewState?.let { roomViewState ->
+            slices.forEach { it.update(roomViewState, true) }
+        }
+    }
+
+    private class Slice<T>(
+        private val selector: (RoomViewState) -> T,
+        private val observer: (T) -> Unit,
+    ) {
+        private var isBound = false
+        private var value: T? = null
+
+        fun update(roomViewState: RoomViewState, isForced: Boolean) {
+            val value = selector(roomViewState)
+            if (isBound && !isForced && value == this.value) return
+            isBound = true
+            this.value = value
+            observer(value)
+        }
+    }
+}
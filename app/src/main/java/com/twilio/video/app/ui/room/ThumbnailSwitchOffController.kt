@@ -0,0 +1,95 @@
+package com.twilio.video.app.ui.room
+
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.app.participant.ParticipantViewState
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import timber.log.Timber
+
+const val THUMBNAIL_SWITCH_OFF_GRACE_PERIOD_MS = 1500L
+
+/*
+ * Switches off the remote video tracks of thumbnails that are scrolled out of the viewport when
+ * the Room uses ClientTrackSwitchOffControl.MANUAL. A thumbnail has to stay off screen for the
+ * grace period before its track is switched off, so flinging through the list does not toggle
+ * every track, and it is switched back on as soon as it is visible again. The track of the primary
+ * participant is always kept on because it is also rendered in the primary view.
+ *
+ * Not thread safe, all calls are expected to come from the main thread.
+ */
+class ThumbnailSwitchOffController(
+    private val coroutineScope: CoroutineScope,
+    private val gracePeriodMs: Long = THUMBNAIL_SWITCH_OFF_GRACE_PERIOD_MS,
+) {
+
+    private val pendingSwitchOffs = HashMap<RemoteVideoTrack, Job>()
+    private val switchedOffTracks = HashSet<RemoteVideoTrack>()
+    private val currentTracks = HashSet<RemoteVideoTrack>()
+
+    var isEnabled = false
+        set(value) {
+            field = value
+            if (!value) clear()
+        }
+
+    fun update(
+        thumbnails: List<ParticipantViewState>,
+        firstVisiblePosition: Int,
+        lastVisiblePosition: Int,
+        primaryParticipantSid: String?,
+    ) {
+        if (!isEnabled) return
+        currentTracks.clear()
+        for (position in thumbnails.indices) {
+            val thumbnail = thumbnails[position]
+            val videoTrack = thumbnail.getRemoteVideoTrack() ?: continue
+            currentTracks.add(videoTrack)
+            val isVisible = position in firstVisiblePosition..lastVisiblePosition ||
+                thumbnail.sid == primaryParticipantSid
+            if (isVisible) {
+                switchOn(videoTrack)
+            } else {
+                scheduleSwitchOff(videoTrack)
+            }
+        }
+        forgetRemovedTracks()
+    }
+
+    /* Switches all tracks that were switched off by this controller back on and forgets them. */
+    fun clear() {
+        pendingSwitchOffs.values.forEach { it.cancel() }
+        pendingSwitchOffs.clear()
+        switchedOffTracks.forEach { it.switchOn() }
+        switchedOffTracks.clear()
+    }
+
+    private fun switchOn(videoTrack: RemoteVideoTrack) {
+        pendingSwitchOffs.remove(videoTrack)?.cancel()
+        if (switchedOffTracks.remove(videoTrack)) {
+            Timber.d("Switching on thumbnail track %s", videoTrack.sid)
+            videoTrack.switchOn()
+        }
+    }
+
+    private fun scheduleSwitchOff(videoTrack: RemoteVideoTrack) {
+        if (videoTrack in switchedOffTracks || videoTrack in pendingSwitchOffs) return
+        pendingSwitchOffs[videoTrack] = coroutineScope.launch {
+            delay(gracePeriodMs)
+            pendingSwitchOffs.remove(videoTrack)
+            switchedOffTracks.add(videoTrack)
+            Timber.d("Switching off thumbnail track %s", videoTrack.sid)
+            videoTrack.switchOff()
+        }
+    }
+
+    /* Tracks that are no longer shown were unsubscribed or replaced, so they are not switched on. */
+    private fun forgetRemovedTracks() {
+        if (pendingSwitchOffs.size + switchedOffTracks.size == 0) return
+        pendingSwitchOffs.entries.removeAll { (videoTrack, job) ->
+            (videoTrack !in currentTracks).also { if (it) job.cancel() }
+        }
+        switchedOffTracks.retainAll(currentTracks)
+    }
+}
@@ -0,0 +1,136 @@
+package com.twilio.video.app.ui.room
+
+import android.view.View
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.VideoContentPreferences
+import com.twilio.video.VideoDimensions
+import com.twilio.video.VideoTrack
+import timber.log.Timber
+
+/*
+ * Render size buckets as landscape width and height, smallest first. A view is reported as the
+ * smallest bucket that covers it so small changes of the layout do not produce new preferences.
+ */
+private val RENDER_SIZE_BUCKETS = arrayOf(
+    VideoDimensions(320, 180),
+    VideoDimensions(640, 360),
+    VideoDimensions(960, 540),
+    VideoDimensions(1280, 720),
+    VideoDimensions(1920, 1080),
+)
+
+/*
+ * Tells the server the dimensions remote video tracks are rendered at when the Room uses
+ * VideoContentPreferencesMode.MANUAL, so small tiles do not receive high resolution layers. A
+ * track can be rendered by several views at once, for example as thumbnail and as primary video,
+ * so the largest render size of all its views is sent, and only when it changes.
+ *
+ * Not thread safe, all calls are expected to come from the main thread.
+ */
+class VideoRenderSizes {
+
+    private val renderSizes = HashMap<RemoteVideoTrack, HashMap<VideoRenderSizeReporter, Int>>()
+    private val sentRenderSizes = HashMap<RemoteVideoTrack, Int>()
+
+    var isEnabled = false
+        set(value) {
+            if (field == value) return
+            field = value
+            sentRenderSizes.clear()
+            renderSizes.keys.forEach { sendRenderSize(it) }
+        }
+
+    internal fun update(reporter: VideoRenderSizeReporter, videoTrack: RemoteVideoTrack, bucket: Int) {
+        renderSizes.getOrPut(videoTrack) { HashMap() }[reporter] = bucket
+        sendRenderSize(videoTrack)
+    }
+
+    internal fun remove(reporter: VideoRenderSizeReporter, videoTrack: RemoteVideoTrack) {
+        val reporters = renderSizes[videoTrack] ?: return
+        reporters.remove(reporter)
+        if (reporters.isEmpty()) {
+            renderSizes.remove(videoTrack)
+            sentRenderSizes.remove(videoTrack)
+        } else {
+            sendRenderSize(videoTrack)
+        }
+    }
+
+    private fun sendRenderSize(videoTrack: RemoteVideoTrack) {
+        if (!isEnabled) return
+        val bucket = renderSizes[videoTrack]?.values?.maxOrNull() ?: return
+        if (sentRenderSizes.put(videoTrack, bucket) == bucket) return
+        val renderDimensions = RENDER_SIZE_BUCKETS[bucket]
+        Timber.d(
+            "Render dimensions of track %s: %dx%d",
+            videoTrack.sid,
+            renderDimensions.width,
+            renderDimensions.height,
+        )
+        videoTrack.setContentPreferences(VideoContentPreferences(renderDimensions))
+    }
+
+    internal companion object {
+        fun renderSizeBucket(width: Int, height: Int): Int {
+            val longSide = maxOf(width, height)
+            val shortSide = minOf(width, height)
+            for (i in RENDER_SIZE_BUCKETS.indices) {
+                val bucket = RENDER_SIZE_BUCKETS[i]
+                if (longSide <= bucket.width && shortSide <= bucket.height) return i
+            }
+            return RENDER_SIZE_BUCKETS.size - 1
+        }
+    }
+}
+
+/*
+ * Reports the laid out size of a view that renders a video track to VideoRenderSizes.
+ */
+class VideoRenderSizeReporter(
+    view: View,
+    private val renderSizes: VideoRenderSizes,
+) : View.OnLayoutChangeListener {
+
+    private var remoteVideoTrack: RemoteVideoTrack? = null
+    private var width = view.width
+    private var height = view.height
+
+    var videoTrack: VideoTrack?
+        get() = remoteVideoTrack
+        set(value) {
+            val remoteVideoTrack = value as? RemoteVideoTrack
+            if (remoteVideoTrack === this.remoteVideoTrack) return
+            this.remoteVideoTrack?.let { renderSizes.remove(this, it) }
+            this.remoteVideoTrack = remoteVideoTrack
+            report()
+        }
+
+    init {
+        view.addOnLayoutChangeListener(this)
+    }
+
+    override fun onLayoutChange(
+        view: View,
+        left: Int,
+        top: Int,
+        right: Int,
+        bottom: Int,
+        oldLeft: Int,
+        oldTop: Int,
+        oldRight: Int,
+        oldBottom: Int,
+    ) = onRenderSizeChanged(right - left, bottom - top)
+
+    internal fun onRenderSizeChanged(width: Int, height: Int) {
+        if (width == this.width && height == this.height) return
+        this.width = width
+        this.height = height
+        report()
+    }
+
+    private fun report() {
+        val remoteVideoTrack = remoteVideoTrack ?: return
+        if (width <= 0 || height <= 0) return
+        renderSizes.update(this, remoteVideoTrack, VideoRenderSizes.renderSizeBucket(width, height))
+    }
+}
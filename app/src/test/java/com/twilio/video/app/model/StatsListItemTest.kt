@@ -0,0 +1,41 @@
+package com.twilio.video.app.model
+
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.model.StatsListItem.ALL_CHANGED
+import com.twilio.video.app.model.StatsListItem.BYTES_CHANGED
+import com.twilio.video.app.model.StatsListItem.FRAMERATE_CHANGED
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class StatsListItemTest : BaseUnitTest() {
+
+    private val item = StatsListItem().apply { reset("MT123", true, false) }
+
+    @Test
+    fun `a reset row should report every field as changed`() {
+        assertThat(item.consumeChanges(), equalTo(ALL_CHANGED))
+    }
+
+    @Test
+    fun `only the fields with new values should be reported as changed`() {
+        item.setBytes(100)
+        item.setFramerate(30)
+        item.setJitter(5)
+        item.consumeChanges()
+
+        item.setBytes(200)
+        item.setFramerate(24)
+        item.setJitter(5)
+
+        assertThat(item.consumeChanges(), equalTo(BYTES_CHANGED or FRAMERATE_CHANGED))
+    }
+
+    @Test
+    fun `consuming the changes should clear them`() {
+        item.setBytes(100)
+        item.consumeChanges()
+
+        assertThat(item.hasChanges(), equalTo(false))
+    }
+}
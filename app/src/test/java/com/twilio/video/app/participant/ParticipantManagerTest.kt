@@ -294,6 +294,143 @@ class ParticipantManagerTest : BaseUnitTest() {
         }
     }
 
+    @Test
+    fun `the local participant should be found by its sid after the sid is known`() {
+        participantManager.updateLocalParticipantSid("1")
+
+        participantManager.muteParticipant("1", true)
+
+        val thumbnails = participantManager.participantThumbnails
+        assertThat(thumbnails.size, equalTo(1))
+        assertThat(thumbnails[0].isMuted, equalTo(true))
+        assertThat(thumbnails[0].isLocalParticipant, equalTo(true))
+    }
+
+    @Test
+    fun `adding a participant that already exists should replace it in place`() {
+        setupThreeParticipantScenario()
+        val participant2 = ParticipantViewState("2", "Renamed Participant 2")
+
+        participantManager.addParticipant(participant2)
+
+        val thumbnails = participantManager.participantThumbnails
+        assertThat(thumbnails.size, equalTo(3))
+        assertThat(thumbnails[1], equalTo(participant2))
+    }
+
+    @Test
+    fun `a batch should only update the track priorities of the final primary participant`() {
+        val participant2 = ParticipantViewState(
+            "2",
+            "Participant 2",
+            videoTrack = VideoTrackViewState(mock<RemoteVideoTrack>()),
+        )
+        val participant3 = ParticipantViewState(
+            "3",
+            "Participant 3",
+            videoTrack = VideoTrackViewState(mock<RemoteVideoTrack>()),
+        )
+
+        participantManager.batch {
+            updateLocalParticipant(localParticipant)
+            addParticipant(participant2)
+            addParticipant(participant3)
+            changePinnedParticipant("3")
+        }
+
+        assertThat(participantManager.primaryParticipant.sid, equalTo("3"))
+        verifyNoInteractions(participant2.videoTrack!!.videoTrack)
+        verify(participant3.getRemoteVideoTrack())!!.priority = HIGH
+    }
+
+    @Test
+    fun `participantThumbnails should return the same snapshot until a participant changes`() {
+        setupThreeParticipantScenario()
+        val thumbnails = participantManager.participantThumbnails
+
+        assertThat(participantManager.participantThumbnails === thumbnails, equalTo(true))
+
+        participantManager.muteParticipant("2", true)
+
+        assertThat(participantManager.participantThumbnails === thumbnails, equalTo(false))
+    }
+
+    @Test
+    fun `participants that were not updated should keep their identity in a new snapshot`() {
+        setupThreeParticipantScenario()
+        val thumbnails = participantManager.participantThumbnails
+
+        participantManager.muteParticipant("2", true)
+
+        val newThumbnails = participantManager.participantThumbnails
+        assertThat(newThumbnails[0] === thumbnails[0], equalTo(true))
+        assertThat(newThumbnails[2] === thumbnails[2], equalTo(true))
+    }
+
+    @Test
+    fun `an update without any changes should not create a new snapshot`() {
+        setupThreeParticipantScenario()
+        val thumbnails = participantManager.participantThumbnails
+
+        participantManager.muteParticipant("2", false)
+
+        assertThat(participantManager.participantThumbnails === thumbnails, equalTo(true))
+    }
+
+    @Test
+    fun `a new dominant speaker should be held back until the minimum hold time passed`() {
+        var time = 0L
+        val participantManager = ParticipantManager(DominantSpeakerPolicy(minHoldTimeMs = 2000)) { time }
+        participantManager.setupRemoteParticipants(3)
+        participantManager.changeDominantSpeaker("2")
+
+        time = 1000
+        participantManager.changeDominantSpeaker("3")
+
+        assertThat(participantManager.primaryParticipant.sid, equalTo("2"))
+        assertThat(participantManager.suppressedDominantSpeakerChanges, equalTo(1))
+        assertThat(participantManager.pendingDominantSpeakerDelayMs, equalTo(1000L))
+
+        time = 2000
+        participantManager.applyPendingDominantSpeaker()
+
+        assertThat(participantManager.primaryParticipant.sid, equalTo("3"))
+        assertThat(participantManager.pendingDominantSpeakerDelayMs, `is`(nullValue()))
+    }
+
+    @Test
+    fun `a dominant speaker within the sticky thumbnails should not be reordered`() {
+        val participantManager = ParticipantManager(DominantSpeakerPolicy(stickyThumbnailCount = 2))
+        participantManager.setupRemoteParticipants(3)
+
+        participantManager.changeDominantSpeaker("3")
+
+        val thumbnails = participantManager.participantThumbnails
+        assertThat(thumbnails[2].sid, equalTo("3"))
+        assertThat(thumbnails[2].isDominantSpeaker, equalTo(true))
+        assertThat(participantManager.suppressedReorders, equalTo(1))
+    }
+
+    @Test
+    fun `reorders within the minimum reorder interval should be deferred`() {
+        var time = 0L
+        val participantManager = ParticipantManager(DominantSpeakerPolicy(minReorderIntervalMs = 3000)) { time }
+        participantManager.setupRemoteParticipants(4)
+        participantManager.changeDominantSpeaker("3")
+
+        time = 1000
+        participantManager.changeDominantSpeaker("4")
+
+        assertThat(participantManager.participantThumbnails[1].sid, equalTo("3"))
+        assertThat(participantManager.primaryParticipant.sid, equalTo("4"))
+        assertThat(participantManager.suppressedReorders, equalTo(1))
+
+        time = 3000
+        participantManager.applyPendingDominantSpeaker()
+
+        assertThat(participantManager.participantThumbnails[1].sid, equalTo("4"))
+    }
+
     private fun setupExistingDominantSpeakerScenario() {
         val participant2 = ParticipantViewState(
             "2",
@@ -322,4 +459,11 @@ class ParticipantManagerTest : BaseUnitTest() {
         participantManager.addParticipant(participant3)
         return participant3
     }
+
+    private fun ParticipantManager.setupRemoteParticipants(count: Int) {
+        updateLocalParticipant(localParticipant)
+        for (sid in 2..count) {
+            addParticipant(ParticipantViewState(sid.toString(), "Participant $sid"))
+        }
+    }
 }
@@ -0,0 +1,60 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.LocalParticipant
+import com.twilio.video.Participant
+import com.twilio.video.RemoteAudioTrackPublication
+import com.twilio.video.RemoteParticipant
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.RemoteVideoTrackPublication
+import com.twilio.video.Room
+import com.twilio.video.VideoTrack
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.mock
+
+/*
+ * Mocks of the SDK objects referenced by a journal. A track is created once per participant and
+ * name, so replayed events for the same track compare equal like they do with a live room.
+ */
+class FakeRoomEventJournalObjects : RoomEventJournalObjects {
+
+    private val videoTracks = HashMap<Pair<String?, String>, VideoTrack>()
+
+    override fun room(name: String): Room = mock { on { this.name } doReturn name }
+
+    override fun participant(snapshot: ParticipantSnapshot): Participant {
+        if (snapshot.isLocalParticipant) {
+            return mock<LocalParticipant> {
+                on { sid } doReturn snapshot.sid
+                on { identity } doReturn snapshot.identity
+                on { networkQualityLevel } doReturn snapshot.networkQualityLevel
+            }
+        }
+        val videoTrackPublications = if (snapshot.hasVideoTrack) {
+            val videoTrack = videoTrack(snapshot.sid, CAMERA_TRACK_NAME) as RemoteVideoTrack
+            listOf(
+                mock<RemoteVideoTrackPublication> {
+                    on { this.videoTrack } doReturn videoTrack
+                    on { remoteVideoTrack } doReturn videoTrack
+                },
+            )
+        } else {
+            emptyList()
+        }
+        val audioTrackPublications =
+            if (snapshot.hasAudioTrack) listOf(mock<RemoteAudioTrackPublication>()) else emptyList()
+        return mock<RemoteParticipant> {
+            on { sid } doReturn snapshot.sid
+            on { identity } doReturn snapshot.identity
+            on { networkQualityLevel } doReturn snapshot.networkQualityLevel
+            on { videoTracks } doReturn videoTrackPublications
+            on { remoteVideoTracks } doReturn videoTrackPublications
+            on { audioTracks } doReturn audioTrackPublications
+            on { remoteAudioTracks } doReturn audioTrackPublications
+        }
+    }
+
+    override fun videoTrack(participantSid: String?, name: String): VideoTrack =
+        videoTracks.getOrPut(participantSid to name) {
+            mock<RemoteVideoTrack> { on { this.name } doReturn name }
+        }
+}
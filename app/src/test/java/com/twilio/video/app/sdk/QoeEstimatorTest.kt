@@ -0,0 +1,121 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.RemoteVideoTrackStats
+import com.twilio.video.StatsReport
+import com.twilio.video.VideoDimensions
+import com.twilio.video.app.BaseUnitTest
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.sameInstance
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.mock
+
+private const val TRACK_SID = "MT123"
+
+class QoeEstimatorTest : BaseUnitTest() {
+
+    private val qoeEstimator = QoeEstimator()
+
+    @Test
+    fun `audio on a good network should have a high MOS`() {
+        val mos = qoeEstimator.audioMos(10, 0f, 100, "opus")
+
+        assertThat(mos, equalTo(4.4f))
+    }
+
+    @Test
+    fun `packet loss should lower the audio MOS`() {
+        val mos = qoeEstimator.audioMos(10, 5f, 100, "opus")
+
+        assertThat(mos, equalTo(3.7f))
+    }
+
+    @Test
+    fun `high latency should lower the audio MOS`() {
+        val mos = qoeEstimator.audioMos(10, 0f, 600, "opus")
+
+        assertThat(mos < 4f, equalTo(true))
+    }
+
+    @Test
+    fun `a steady 720p video at 30 fps should have the best video score`() {
+        val score = qoeEstimator.videoScore(TRACK_SID, 1280, 720, 30, 0f)
+
+        assertThat(score, equalTo(5f))
+    }
+
+    @Test
+    fun `an unstable frame rate should lower the video score`() {
+        val score = qoeEstimator.videoScore(TRACK_SID, 1280, 720, 30, 25f)
+
+        assertThat(score < 5f, equalTo(true))
+    }
+
+    @Test
+    fun `frozen video should lower the video score over time`() {
+        val first = qoeEstimator.videoScore(TRACK_SID, 1280, 720, 0, 0f)
+        val second = qoeEstimator.videoScore(TRACK_SID, 1280, 720, 0, 0f)
+
+        assertThat(first > second, equalTo(true))
+    }
+
+    @Test
+    fun `a switched off video track should not be scored or counted as frozen`() {
+        val qoeEstimator = QoeEstimator { it == TRACK_SID }
+        val remoteTracks = mapOf(TRACK_SID to RemoteTrackInfo("PA123", "Participant", false, "video"))
+
+        repeat(2) {
+            val scores = qoeEstimator.estimate(listOf(frozenRemoteVideoStatsReport()), emptyMap(), remoteTracks, null)
+            assertThat(scores, equalTo(emptyMap()))
+        }
+
+        assertThat(qoeEstimator.videoScore(TRACK_SID, 1280, 720, 30, 0f), equalTo(5f))
+    }
+
+    @Test
+    fun `unchanged scores should be returned as the previous map`() {
+        val remoteTracks = mapOf(TRACK_SID to RemoteTrackInfo("PA123", "Participant", false, "video"))
+        val statsReports = listOf(
+            remoteVideoStatsReport(
+                trackStats(
+                    TRACK_SID,
+                    StatsField.FRAME_RATE to 30,
+                    StatsField.DIMENSIONS to VideoDimensions(1280, 720),
+                ),
+            ),
+        )
+
+        val first = qoeEstimator.estimate(statsReports, emptyMap(), remoteTracks, null)
+        val second = qoeEstimator.estimate(statsReports, emptyMap(), remoteTracks, null)
+
+        assertThat(first, equalTo(mapOf(TRACK_SID to TrackQoeScore("PA123", QoeScore(videoScore = 5f)))))
+        assertThat(second, sameInstance(first))
+    }
+
+    @Test
+    fun `the score of a participant should be the worst of the scores of its tracks`() {
+        val trackScores = mapOf(
+            "MT1" to TrackQoeScore("PA1", QoeScore(audioMos = 4.2f)),
+            "MT2" to TrackQoeScore("PA1", QoeScore(videoScore = 3.1f)),
+            "MT3" to TrackQoeScore("PA1", QoeScore(videoScore = 4.8f)),
+            "MT4" to TrackQoeScore("PA2", QoeScore(audioMos = 3.9f)),
+        )
+
+        assertThat(
+            trackScores.toParticipantScores(),
+            equalTo(mapOf("PA1" to QoeScore(4.2f, 3.1f), "PA2" to QoeScore(audioMos = 3.9f))),
+        )
+    }
+
+    @Test
+    fun `the overall score should be the worst of audio and video`() {
+        assertThat(QoeScore(4.2f, 3.1f).overall, equalTo(3.1f))
+        assertThat(QoeScore(audioMos = 4.2f).overall, equalTo(4.2f))
+    }
+
+    private fun frozenRemoteVideoStatsReport() = remoteVideoStatsReport(trackStats(TRACK_SID))
+
+    private fun remoteVideoStatsReport(remoteVideoTrackStats: RemoteVideoTrackStats): StatsReport =
+        mock { on { this.remoteVideoTrackStats } doReturn listOf(remoteVideoTrackStats) }
+}
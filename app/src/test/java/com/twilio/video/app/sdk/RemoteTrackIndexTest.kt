@@ -0,0 +1,65 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.RemoteParticipant
+import com.twilio.video.app.BaseUnitTest
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.whenever
+
+class RemoteTrackIndexTest : BaseUnitTest() {
+
+    private val remoteTrackIndex = RemoteTrackIndex()
+    private val alice = remoteParticipant("PA1", "alice")
+    private val bob = remoteParticipant("PA2", "bob")
+
+    @Test
+    fun `a subscribed track should be attributed to its participant`() {
+        remoteTrackIndex.add(alice, "MT1", true, MICROPHONE_TRACK_NAME)
+
+        assertThat(
+            remoteTrackIndex["MT1"],
+            equalTo(RemoteTrackInfo("PA1", "alice", true, MICROPHONE_TRACK_NAME)),
+        )
+    }
+
+    @Test
+    fun `an unsubscribed track should be removed`() {
+        remoteTrackIndex.add(alice, "MT1", false, CAMERA_TRACK_NAME)
+
+        remoteTrackIndex.remove("MT1")
+
+        assertThat(remoteTrackIndex["MT1"], `is`(nullValue()))
+    }
+
+    @Test
+    fun `removing a participant should only remove its own tracks`() {
+        remoteTrackIndex.add(alice, "MT1", true, MICROPHONE_TRACK_NAME)
+        remoteTrackIndex.add(alice, "MT2", false, CAMERA_TRACK_NAME)
+        remoteTrackIndex.add(bob, "MT3", true, MICROPHONE_TRACK_NAME)
+
+        remoteTrackIndex.removeAll("PA1")
+
+        assertThat(remoteTrackIndex.remoteTracks.keys, equalTo(setOf("MT3")))
+    }
+
+    @Test
+    fun `published tracks should not change when the index does`() {
+        remoteTrackIndex.add(alice, "MT1", true, MICROPHONE_TRACK_NAME)
+        val remoteTracks = remoteTrackIndex.remoteTracks
+
+        remoteTrackIndex.add(bob, "MT2", true, MICROPHONE_TRACK_NAME)
+        remoteTrackIndex.remove("MT1")
+
+        assertThat(remoteTracks.keys, equalTo(setOf("MT1")))
+        assertThat(remoteTrackIndex.remoteTracks.keys, equalTo(setOf("MT2")))
+    }
+
+    private fun remoteParticipant(sid: String, identity: String) = mock<RemoteParticipant>().apply {
+        whenever(this.sid).thenReturn(sid)
+        whenever(this.identity).thenReturn(identity)
+    }
+}
@@ -0,0 +1,132 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_FOUR
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_ONE
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.ui.room.RoomEvent
+import com.twilio.video.app.ui.room.RoomEvent.DominantSpeakerChanged
+import com.twilio.video.app.ui.room.RoomEvent.QoeScoresChanged
+import com.twilio.video.app.ui.room.RoomEvent.RecordingStarted
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.NetworkQualityLevelChange
+import com.twilio.video.app.ui.room.RoomEvent.VideoFreezeEnded
+import com.twilio.video.app.ui.room.RoomEvent.VideoFreezeStarted
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.test.TestCoroutineDispatcher
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.After
+import org.junit.Test
+
+@ExperimentalCoroutinesApi
+class RoomEventDispatcherTest : BaseUnitTest() {
+
+    private val testDispatcher = TestCoroutineDispatcher()
+    private val dispatchedEvents = mutableListOf<RoomEvent>()
+    private var blockingDispatch: CompletableDeferred<Unit>? = null
+    private var now = 0L
+    private val qoeScores = mapOf("MT123" to TrackQoeScore("PA123", QoeScore(4f, 4f)))
+    private val replacedEvents = mutableListOf<RoomEvent>()
+    private val roomEventDispatcher = RoomEventDispatcher(
+        CoroutineScope(testDispatcher),
+        2,
+        { now },
+        { replacedEvents.add(it.roomEvent) },
+    ) {
+        blockingDispatch?.await()
+        dispatchedEvents.add(it.roomEvent)
+    }
+
+    @After
+    fun tearDown() {
+        testDispatcher.cleanupTestCoroutines()
+    }
+
+    @Test
+    fun `events should be dispatched in the order they were sent`() {
+        val events = (1..5).map { DominantSpeakerChanged(it.toString()) }
+
+        events.forEach { roomEventDispatcher.send(it) }
+
+        assertThat(dispatchedEvents, equalTo<List<RoomEvent>>(events))
+    }
+
+    @Test
+    fun `a status event should replace the queued one of its kind while the queue is full`() {
+        blockingDispatch = CompletableDeferred()
+        fillQueue()
+
+        roomEventDispatcher.send(QoeScoresChanged(emptyMap()))
+        roomEventDispatcher.send(RecordingStarted)
+        roomEventDispatcher.send(QoeScoresChanged(qoeScores))
+        blockingDispatch!!.complete(Unit)
+
+        assertThat(
+            dispatchedEvents.drop(3),
+            equalTo(listOf(QoeScoresChanged(qoeScores), RecordingStarted)),
+        )
+        assertThat(replacedEvents, equalTo<List<RoomEvent>>(listOf(QoeScoresChanged(emptyMap()))))
+        assertThat(roomEventDispatcher.metrics.droppedEvents, equalTo(1L))
+    }
+
+    @Test
+    fun `status events of different participants should not replace each other`() {
+        blockingDispatch = CompletableDeferred()
+        fillQueue()
+
+        roomEventDispatcher.send(NetworkQualityLevelChange("1", NETWORK_QUALITY_LEVEL_ONE))
+        roomEventDispatcher.send(NetworkQualityLevelChange("2", NETWORK_QUALITY_LEVEL_ONE))
+        roomEventDispatcher.send(NetworkQualityLevelChange("1", NETWORK_QUALITY_LEVEL_FOUR))
+        blockingDispatch!!.complete(Unit)
+
+        assertThat(
+            dispatchedEvents.drop(3),
+            equalTo(
+                listOf(
+                    NetworkQualityLevelChange("1", NETWORK_QUALITY_LEVEL_FOUR),
+                    NetworkQualityLevelChange("2", NETWORK_QUALITY_LEVEL_ONE),
+                ),
+            ),
+        )
+    }
+
+    @Test
+    fun `freeze events should never be dropped`() {
+        blockingDispatch = CompletableDeferred()
+        fillQueue()
+        val videoFreeze = VideoFreeze("MT123", "PA123", VideoFreezeCause.NO_FRAMES, 0)
+
+        roomEventDispatcher.send(VideoFreezeStarted(videoFreeze))
+        roomEventDispatcher.send(VideoFreezeEnded(videoFreeze.copy(durationMs = 1000, isOngoing = false)))
+        roomEventDispatcher.send(VideoFreezeStarted(videoFreeze))
+        blockingDispatch!!.complete(Unit)
+
+        assertThat(dispatchedEvents.size, equalTo(6))
+        assertThat(roomEventDispatcher.metrics.droppedEvents, equalTo(0L))
+    }
+
+    @Test
+    fun `metrics should report the queue depth and dispatch latency`() {
+        blockingDispatch = CompletableDeferred()
+        roomEventDispatcher.send(DominantSpeakerChanged("1"))
+        roomEventDispatcher.send(DominantSpeakerChanged("2"))
+
+        assertThat(roomEventDispatcher.metrics.queueDepth, equalTo(1))
+
+        now = 4_000_000
+        blockingDispatch!!.complete(Unit)
+
+        val metrics = roomEventDispatcher.metrics
+        assertThat(metrics.queueDepth, equalTo(0))
+        assertThat(metrics.maxQueueDepth, equalTo(1))
+        assertThat(metrics.dispatchedEvents, equalTo(2L))
+        assertThat(metrics.maxLatencyMicros, equalTo(4000L))
+    }
+
+    private fun fillQueue() {
+        roomEventDispatcher.send(DominantSpeakerChanged("1"))
+        roomEventDispatcher.send(DominantSpeakerChanged("2"))
+        roomEventDispatcher.send(DominantSpeakerChanged("3"))
+    }
+}
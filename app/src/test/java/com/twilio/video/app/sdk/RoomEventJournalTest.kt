@@ -0,0 +1,180 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_FOUR
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_UNKNOWN
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.data.api.AuthServiceError
+import com.twilio.video.app.ui.room.RoomEvent
+import com.twilio.video.app.ui.room.RoomEvent.Connected
+import com.twilio.video.app.ui.room.RoomEvent.Disconnected
+import com.twilio.video.app.ui.room.RoomEvent.DominantSpeakerChanged
+import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent
+import com.twilio.video.app.ui.room.RoomEvent.LocalParticipantEvent.AudioOff
+import com.twilio.video.app.ui.room.RoomEvent.QoeScoresChanged
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.MuteRemoteParticipant
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.NetworkQualityLevelChange
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.RemoteParticipantConnected
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.RemoteParticipantDisconnected
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.TrackSwitchOff
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.VideoTrackUpdated
+import com.twilio.video.app.ui.room.RoomEvent.TokenError
+import com.twilio.video.app.ui.room.RoomEvent.Transcription
+import com.twilio.video.app.ui.room.RoomEvent.VideoFreezeStarted
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.test.TestCoroutineDispatcher
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.After
+import org.junit.Test
+import java.io.IOException
+import java.io.StringReader
+import java.io.StringWriter
+import java.io.Writer
+
+@ExperimentalCoroutinesApi
+class RoomEventJournalTest : BaseUnitTest() {
+
+    private val objects = FakeRoomEventJournalObjects()
+    private var now = 1000L
+    private val journal = StringWriter()
+    private val testDispatcher = TestCoroutineDispatcher()
+    private val recorder = RoomEventRecorder(CoroutineScope(testDispatcher), { now }) { journal }
+    private val statsTicks = mutableListOf<StatsTickJournalEntry>()
+
+    @After
+    fun tearDown() {
+        testDispatcher.cleanupTestCoroutines()
+    }
+
+    private fun readJournal(): List<RoomEventJournalEntry> {
+        recorder.close()
+        return RoomEventJournalReader(StringReader(journal.toString()), objects) { statsTicks.add(it) }.read()
+    }
+
+    @Test
+    fun `events should be read back with the time elapsed since the first event`() {
+        val roomEvents = listOf<RoomEvent>(
+            DominantSpeakerChanged("1"),
+            DominantSpeakerChanged(null),
+            MuteRemoteParticipant("1", true),
+            NetworkQualityLevelChange("1", NETWORK_QUALITY_LEVEL_FOUR),
+            VideoTrackUpdated("1", objects.videoTrack("1", CAMERA_TRACK_NAME)),
+            VideoTrackUpdated("1", null),
+            TrackSwitchOff("1", objects.videoTrack("1", CAMERA_TRACK_NAME), true),
+            LocalParticipantEvent.VideoTrackUpdated(objects.videoTrack(null, CAMERA_TRACK_NAME)),
+            QoeScoresChanged(
+                mapOf(
+                    "MT1" to TrackQoeScore("1", QoeScore(audioMos = 4.1f)),
+                    "MT2" to TrackQoeScore("2", QoeScore(videoScore = 2.5f)),
+                ),
+            ),
+            VideoFreezeStarted(VideoFreeze("TR1", "1", VideoFreezeCause.NO_FRAMES, 900)),
+            TokenError(AuthServiceError.EXPIRED_PASSCODE_ERROR),
+            RemoteParticipantDisconnected("1"),
+            AudioOff,
+            Disconnected,
+        )
+        roomEvents.forEach { roomEvent ->
+            recorder.record(roomEvent)
+            now += 10
+        }
+
+        val entries = readJournal()
+
+        assertThat(entries.map { it.roomEvent }, equalTo(roomEvents))
+        assertThat(entries.map { it.timestampMs }, equalTo(roomEvents.indices.map { it * 10L }))
+    }
+
+    @Test
+    fun `text fields should survive tabs and line breaks`() {
+        val transcription = Transcription("one\ttwo\nthree \\ four")
+        recorder.record(transcription)
+
+        assertThat(readJournal().single().roomEvent, equalTo<RoomEvent>(transcription))
+    }
+
+    @Test
+    fun `participants should be read back from their snapshot`() {
+        val localParticipant = objects.participant(
+            ParticipantSnapshot("L", "Me", NETWORK_QUALITY_LEVEL_UNKNOWN, false, false, true),
+        )
+        val remoteParticipant = objects.participant(
+            ParticipantSnapshot("1", "Alice", NETWORK_QUALITY_LEVEL_FOUR, true, true, false),
+        )
+        recorder.record(Connected(listOf(localParticipant, remoteParticipant), objects.room("Room"), "Room"))
+        recorder.record(RemoteParticipantConnected(remoteParticipant))
+
+        val (connected, participantConnected) = readJournal().map { it.roomEvent }
+
+        connected as Connected
+        assertThat(connected.roomName, equalTo("Room"))
+        assertThat(connected.participants.map { it.sid }, equalTo(listOf("L", "1")))
+        participantConnected as RemoteParticipantConnected
+        val participant = participantConnected.participant
+        assertThat(participant.identity, equalTo("Alice"))
+        assertThat(participant.networkQualityLevel, equalTo(NETWORK_QUALITY_LEVEL_FOUR))
+        assertThat(
+            participant.videoTracks.single().videoTrack,
+            equalTo(objects.videoTrack("1", CAMERA_TRACK_NAME)),
+        )
+        assertThat(participant.audioTracks.size, equalTo(1))
+    }
+
+    @Test
+    fun `stats ticks should be read back apart from the events they were recorded between`() {
+        val trackRates = mapOf("TR1" to TrackStatsRates(1200, 1.5f, 0.25f, -3))
+        recorder.record(AudioOff)
+        now += 10
+        recorder.recordStatsTick(trackRates)
+        now += 10
+        recorder.record(Disconnected)
+
+        val entries = readJournal()
+
+        assertThat(entries.map { it.timestampMs }, equalTo(listOf(0L, 20L)))
+        assertThat(statsTicks, equalTo(listOf(StatsTickJournalEntry(10, trackRates))))
+    }
+
+    @Test
+    fun `every event should be written before the journal is closed`() {
+        recorder.record(AudioOff)
+
+        assertThat(journal.toString().lines()[1], equalTo("0\tAudioOff"))
+    }
+
+    @Test
+    fun `a failing writer should stop the recording without throwing`() {
+        var writes = 0
+        val failingWriter = object : Writer() {
+            override fun write(buffer: CharArray, offset: Int, length: Int) {
+                writes++
+                throw IOException("No space left on device")
+            }
+
+            override fun flush() = Unit
+
+            override fun close() = Unit
+        }
+        val failingRecorder = RoomEventRecorder(CoroutineScope(testDispatcher), { now }) { failingWriter }
+
+        failingRecorder.record(AudioOff)
+        val failedWrites = writes
+        failingRecorder.record(Disconnected)
+        failingRecorder.close()
+
+        assertThat(failedWrites > 0, equalTo(true))
+        assertThat(writes, equalTo(failedWrites))
+    }
+
+    @Test
+    fun `the room name should be reduced to a safe file name`() {
+        assertThat(roomEventJournalFileName("../my room/1", 42), equalTo(".._my_room_1-42.journal"))
+    }
+
+    @Test
+    fun `an empty journal should have no entries`() {
+        assertThat(readJournal().firstOrNull(), nullValue())
+    }
+}
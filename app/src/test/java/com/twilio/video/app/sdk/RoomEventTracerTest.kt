@@ -0,0 +1,108 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.ui.room.RoomEvent.RecordingStarted
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.MuteRemoteParticipant
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class RoomEventTracerTest : BaseUnitTest() {
+
+    private var now = 0L
+    private val roomEventTracer = RoomEventTracer(true, { now }, false)
+
+    @Test
+    fun `latency should be recorded from creation for every stage`() {
+        val trace = roomEventTracer.created(MuteRemoteParticipant("1", true))!!
+
+        now = 3_000_000
+        val traces = roomEventTracer.observed(listOf(trace))
+        now = 5_000_000
+        roomEventTracer.stateUpdated(traces)
+        now = 20_000_000
+        roomEventTracer.bound()
+
+        val name = "MuteRemoteParticipant"
+        assertThat(roomEventTracer.histogram(name, RoomEventStage.OBSERVED)!!.maxNanos, equalTo(3_000_000L))
+        assertThat(roomEventTracer.histogram(name, RoomEventStage.STATE_UPDATED)!!.maxNanos, equalTo(5_000_000L))
+        assertThat(roomEventTracer.histogram(name, RoomEventStage.BOUND)!!.maxNanos, equalTo(20_000_000L))
+    }
+
+    @Test
+    fun `events that do not update the state should only be recorded as observed`() {
+        roomEventTracer.observed(listOfNotNull(roomEventTracer.created(RecordingStarted)))
+
+        roomEventTracer.bound()
+
+        assertThat(roomEventTracer.histogram("RecordingStarted", RoomEventStage.OBSERVED)!!.count, equalTo(1L))
+        assertThat(roomEventTracer.histogram("RecordingStarted", RoomEventStage.BOUND)!!.count, equalTo(0L))
+    }
+
+    @Test
+    fun `a state update should only be counted once per event`() {
+        val traces = roomEventTracer.observed(listOfNotNull(roomEventTracer.created(MuteRemoteParticipant("1", true))))
+
+        roomEventTracer.stateUpdated(traces)
+        roomEventTracer.stateUpdated(traces)
+
+        assertThat(
+            roomEventTracer.histogram("MuteRemoteParticipant", RoomEventStage.STATE_UPDATED)!!.count,
+            equalTo(1L),
+        )
+    }
+
+    @Test
+    fun `a discarded event should not be recorded when it is observed`() {
+        val trace = roomEventTracer.created(MuteRemoteParticipant("1", true))!!
+
+        roomEventTracer.discarded(trace)
+
+        assertThat(roomEventTracer.observed(listOf(trace)).isEmpty(), equalTo(true))
+        assertThat(roomEventTracer.histogram("MuteRemoteParticipant", RoomEventStage.OBSERVED), nullValue())
+    }
+
+    @Test
+    fun `nothing should be recorded while disabled`() {
+        roomEventTracer.isEnabled = false
+        val trace = roomEventTracer.created(MuteRemoteParticipant("1", true))
+
+        assertThat(trace, nullValue())
+        assertThat(roomEventTracer.histogram("MuteRemoteParticipant", RoomEventStage.OBSERVED), nullValue())
+    }
+
+    @Test
+    fun `every send of the same event object should be traced on its own`() {
+        val firstTrace = roomEventTracer.created(RecordingStarted)!!
+        now = 2_000_000
+        val secondTrace = roomEventTracer.created(RecordingStarted)!!
+        now = 5_000_000
+
+        roomEventTracer.observed(listOf(firstTrace))
+        roomEventTracer.observed(listOf(secondTrace))
+
+        val histogram = roomEventTracer.histogram("RecordingStarted", RoomEventStage.OBSERVED)!!
+        assertThat(histogram.count, equalTo(2L))
+        assertThat(histogram.maxNanos, equalTo(5_000_000L))
+    }
+
+    @Test
+    fun `percentiles should report the upper bound of their bucket`() {
+        val histogram = LatencyHistogram()
+        repeat(9) { histogram.record(1_500_000) }
+        histogram.record(40_000_000)
+
+        assertThat(histogram.percentileMs(50), equalTo(2L))
+        assertThat(histogram.percentileMs(99), equalTo(64L))
+    }
+
+    @Test
+    fun `latencies of a second and over should fall in the open bucket`() {
+        val histogram = LatencyHistogram()
+
+        histogram.record(5_000_000_000)
+
+        assertThat(histogram.percentileMs(50), nullValue())
+    }
+}
@@ -0,0 +1,34 @@
+package com.twilio.video.app.sdk
+
+import org.mockito.kotlin.mock
+import java.lang.reflect.Field
+
+/* Names of the fields of the SDK track stats that tests set. */
+object StatsField {
+    const val TRACK_SID = "trackSid"
+    const val CODEC = "codec"
+    const val JITTER = "jitter"
+    const val FRAME_RATE = "frameRate"
+    const val DIMENSIONS = "dimensions"
+    const val BYTES_RECEIVED = "bytesReceived"
+    const val PACKETS_RECEIVED = "packetsReceived"
+}
+
+private val statsFields = HashMap<Pair<Class<*>, String>, Field>()
+
+/* The SDK stats are final fields set by native code, so tests write them directly. */
+fun Any.setStatsField(fieldName: String, value: Any) {
+    val field = statsFields.getOrPut(javaClass to fieldName) {
+        generateSequence<Class<*>>(javaClass) { it.superclass }
+            .firstNotNullOf { type -> type.declaredFields.find { it.name == fieldName } }
+            .apply { isAccessible = true }
+    }
+    field.set(this, value)
+}
+
+/* A mock of the SDK track stats T with the given fields, all other fields are zero or null. */
+inline fun <reified T : Any> trackStats(trackSid: String, vararg fields: Pair<String, Any>): T =
+    mock<T>().apply {
+        setStatsField(StatsField.TRACK_SID, trackSid)
+        fields.forEach { (fieldName, value) -> setStatsField(fieldName, value) }
+    }
@@ -0,0 +1,68 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.app.BaseUnitTest
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+private const val TRACK_SID = "MT123"
+
+class StatsAggregatorTest : BaseUnitTest() {
+
+    private val statsAggregator = StatsAggregator { 0 }
+
+    @Test
+    fun `the first sample of a track should not produce rates`() {
+        val rates = statsAggregator.update(TRACK_SID, 0, 1000, 10, 0, 30, 0)
+
+        assertThat(rates, `is`(nullValue()))
+    }
+
+    @Test
+    fun `the bitrate should be derived from the bytes of the last interval`() {
+        statsAggregator.update(TRACK_SID, 0, 100_000, 100, 0, 30, 0)
+
+        val rates = statsAggregator.update(TRACK_SID, 1000, 225_000, 200, 0, 30, 0)
+
+        assertThat(rates!!.bitrateKbps, equalTo(1000L))
+    }
+
+    @Test
+    fun `the packet loss rate should only account for packets of the last interval`() {
+        statsAggregator.update(TRACK_SID, 0, 0, 1000, 500, 30, 0)
+
+        val rates = statsAggregator.update(TRACK_SID, 1000, 1000, 1090, 510, 30, 0)
+
+        assertThat(rates!!.packetLossPercent, equalTo(10f))
+    }
+
+    @Test
+    fun `a steady frame rate should not have any variance`() {
+        statsAggregator.update(TRACK_SID, 0, 0, 0, 0, 30, 0)
+
+        val rates = statsAggregator.update(TRACK_SID, 1000, 1000, 10, 0, 30, 0)
+
+        assertThat(rates!!.frameRateVariance, equalTo(0f))
+    }
+
+    @Test
+    fun `an increasing round trip time should produce a positive trend`() {
+        statsAggregator.update(TRACK_SID, 0, 0, 0, 0, 30, 100)
+        statsAggregator.update(TRACK_SID, 1000, 1000, 10, 0, 30, 200)
+
+        val rates = statsAggregator.update(TRACK_SID, 2000, 2000, 20, 0, 30, 300)
+
+        assertThat(rates!!.roundTripTimeTrend > 0, equalTo(true))
+    }
+
+    @Test
+    fun `reset counters should not produce rates`() {
+        statsAggregator.update(TRACK_SID, 0, 100_000, 100, 0, 30, 0)
+
+        val rates = statsAggregator.update(TRACK_SID, 1000, 10, 1, 0, 30, 0)
+
+        assertThat(rates, `is`(nullValue()))
+    }
+}
@@ -0,0 +1,101 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.RemoteAudioTrackStats
+import com.twilio.video.StatsReport
+import com.twilio.video.app.BaseUnitTest
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.mock
+
+private const val TRACK_SID = "MT123"
+
+class StatsHistoryTest : BaseUnitTest() {
+
+    private val statsHistory = StatsHistory(capacity = 5)
+
+    @Test
+    fun `window should return null for a track without history`() {
+        assertThat(statsHistory.window(TRACK_SID, StatsMetric.BITRATE, 60), `is`(nullValue()))
+    }
+
+    @Test
+    fun `window should only include samples of the requested time window`() {
+        recordBitrates(100, 200, 300, 400)
+
+        val window = statsHistory.window(TRACK_SID, StatsMetric.BITRATE, 2)!!
+
+        assertThat(window, equalTo(StatsWindow(300, 400, 350.0, 2)))
+    }
+
+    @Test
+    fun `window should only include samples that fit in the capacity`() {
+        recordBitrates(100, 200, 300, 400, 500, 600, 700)
+
+        val window = statsHistory.window(TRACK_SID, StatsMetric.BITRATE, 60)!!
+
+        assertThat(window, equalTo(StatsWindow(300, 700, 500.0, 5)))
+    }
+
+    @Test
+    fun `average should match the average of the window`() {
+        recordBitrates(100, 200, 300, 400)
+
+        assertThat(statsHistory.average(TRACK_SID, StatsMetric.BITRATE, 2), equalTo(350.0))
+    }
+
+    @Test
+    fun `average should be NaN for a track without history`() {
+        assertThat(statsHistory.average(TRACK_SID, StatsMetric.BITRATE, 60).isNaN(), equalTo(true))
+    }
+
+    @Test
+    fun `latest should return the most recent sample`() {
+        recordBitrates(100, 200, 300, 400, 500, 600)
+
+        assertThat(statsHistory.latest(TRACK_SID, StatsMetric.BITRATE), equalTo(600L))
+    }
+
+    @Test
+    fun `clear should drop the history of all tracks`() {
+        recordBitrates(100)
+
+        statsHistory.clear()
+
+        assertThat(statsHistory.latest(TRACK_SID, StatsMetric.BITRATE), `is`(nullValue()))
+    }
+
+    @Test
+    fun `a track should not be recorded before it has rates`() {
+        val statsReports = listOf(remoteAudioStatsReport())
+
+        statsHistory.record(statsReports, emptyMap(), 0)
+        statsHistory.record(statsReports, mapOf(TRACK_SID to TrackStatsRates(64, 0f, 0f, 0)), 1000)
+
+        assertThat(statsHistory.window(TRACK_SID, StatsMetric.BITRATE, 60), equalTo(StatsWindow(64, 64, 64.0, 1)))
+    }
+
+    @Test
+    fun `a track without rates should keep its history`() {
+        val statsReports = listOf(remoteAudioStatsReport())
+        statsHistory.record(statsReports, mapOf(TRACK_SID to TrackStatsRates(64, 0f, 0f, 0)), 0)
+
+        statsHistory.record(statsReports, emptyMap(), 1000)
+
+        assertThat(statsHistory.latest(TRACK_SID, StatsMetric.BITRATE), equalTo(64L))
+    }
+
+    private fun remoteAudioStatsReport(): StatsReport {
+        val remoteAudioTrackStats = trackStats<RemoteAudioTrackStats>(TRACK_SID)
+        return mock { on { this.remoteAudioTrackStats } doReturn listOf(remoteAudioTrackStats) }
+    }
+
+    private fun recordBitrates(vararg bitrates: Long) {
+        bitrates.forEachIndexed { index, bitrate ->
+            statsHistory.record(TRACK_SID, index * 1000L, 0, bitrate, 0, 0, 0, 0, 0, 0)
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.sdk.StatsPollingPolicy.FAST
+import com.twilio.video.app.sdk.StatsPollingPolicy.PAUSED
+import com.twilio.video.app.sdk.StatsPollingPolicy.SLOW
+import junitparams.JUnitParamsRunner
+import junitparams.Parameters
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(JUnitParamsRunner::class)
+class StatsPollingPolicyTest : BaseUnitTest() {
+
+    @Parameters(method = "params")
+    @Test
+    fun `from should pick the polling policy for the current stats visibility`(
+        isStatsEnabled: Boolean,
+        isStatsVisible: Boolean,
+        isInForeground: Boolean,
+        expectedPolicy: StatsPollingPolicy,
+    ) {
+        val policy = StatsPollingPolicy.from(isStatsEnabled, isStatsVisible, isInForeground)
+
+        assertThat(policy, equalTo(expectedPolicy))
+    }
+
+    fun params() = arrayOf(
+        arrayOf(true, true, true, FAST),
+        arrayOf(true, false, true, SLOW),
+        arrayOf(true, true, false, PAUSED),
+        arrayOf(true, false, false, PAUSED),
+        arrayOf(false, true, true, PAUSED),
+        arrayOf(false, false, true, PAUSED),
+    )
+}
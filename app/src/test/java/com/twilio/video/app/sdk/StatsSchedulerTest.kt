@@ -0,0 +1,116 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.Room
+import com.twilio.video.StatsListener
+import com.twilio.video.app.BaseUnitTest
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.test.TestCoroutineDispatcher
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.After
+import org.junit.Test
+import org.mockito.kotlin.any
+import org.mockito.kotlin.argumentCaptor
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+
+@ExperimentalCoroutinesApi
+class StatsSchedulerTest : BaseUnitTest() {
+
+    private val testDispatcher = TestCoroutineDispatcher()
+    private val roomManager = mock<RoomManager>()
+    private val room = mock<Room>()
+    private var now = 0L
+    private val statsScheduler = StatsScheduler(roomManager, room, CoroutineScope(testDispatcher)) { now }
+
+    @After
+    fun tearDown() {
+        statsScheduler.stop()
+        testDispatcher.cleanupTestCoroutines()
+    }
+
+    @Test
+    fun `ticks should be skipped while a getStats request is in flight`() {
+        statsScheduler.start(StatsPollingPolicy.FAST)
+
+        testDispatcher.advanceTimeBy(3000)
+
+        verify(room, times(1)).getStats(any())
+        assertThat(statsScheduler.skippedTicks, equalTo(3))
+    }
+
+    @Test
+    fun `a completed request should report its round trip time and allow the next one`() {
+        statsScheduler.start(StatsPollingPolicy.FAST)
+        val statsListener = argumentCaptor<StatsListener>().apply {
+            verify(room).getStats(capture())
+        }.firstValue
+
+        now = 250
+        statsListener.onStats(emptyList())
+        testDispatcher.advanceTimeBy(1000)
+
+        verify(roomManager).sendStatsUpdate(emptyList(), 250)
+        verify(room, times(2)).getStats(any())
+    }
+
+    @Test
+    fun `an unanswered request should be abandoned after the maximum of missed ticks`() {
+        statsScheduler.start(StatsPollingPolicy.FAST)
+        val statsListener = argumentCaptor<StatsListener>().apply {
+            verify(room).getStats(capture())
+        }.firstValue
+
+        testDispatcher.advanceTimeBy(STATS_REQUEST_MAX_MISSED_TICKS * 1000L)
+        verify(room, times(1)).getStats(any())
+        testDispatcher.advanceTimeBy(1000)
+
+        verify(room, times(2)).getStats(any())
+        statsListener.onStats(emptyList())
+        verify(roomManager, never()).sendStatsUpdate(any(), any())
+    }
+
+    @Test
+    fun `a response that arrives after stop should be dropped`() {
+        statsScheduler.start(StatsPollingPolicy.FAST)
+        val statsListener = argumentCaptor<StatsListener>().apply {
+            verify(room).getStats(capture())
+        }.firstValue
+
+        statsScheduler.stop()
+        statsListener.onStats(emptyList())
+
+        verify(roomManager, never()).sendStatsUpdate(any(), any())
+    }
+
+    @Test
+    fun `a restarted scheduler should request stats right away`() {
+        statsScheduler.start(StatsPollingPolicy.FAST)
+
+        statsScheduler.start(StatsPollingPolicy.FAST)
+
+        verify(room, times(2)).getStats(any())
+        assertThat(statsScheduler.skippedTicks, equalTo(0))
+    }
+
+    @Test
+    fun `a paused policy should not request stats`() {
+        statsScheduler.start(StatsPollingPolicy.PAUSED)
+
+        testDispatcher.advanceTimeBy(10_000)
+
+        verify(room, never()).getStats(any())
+    }
+
+    @Test
+    fun `changing the policy should reschedule the ticker`() {
+        statsScheduler.start(StatsPollingPolicy.PAUSED)
+
+        statsScheduler.pollingPolicy = StatsPollingPolicy.FAST
+
+        verify(room).getStats(any())
+    }
+}
@@ -0,0 +1,96 @@
+package com.twilio.video.app.sdk
+
+import com.twilio.video.app.BaseUnitTest
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+private const val TRACK_SID = "MT123"
+private const val PARTICIPANT_SID = "PA123"
+
+class VideoFreezeDetectorTest : BaseUnitTest() {
+
+    private val videoFreezeDetector = VideoFreezeDetector()
+
+    @Test
+    fun `a track that never rendered should not be reported as frozen`() {
+        val freeze = update(0, 0, 0)
+
+        assertThat(freeze, `is`(nullValue()))
+    }
+
+    @Test
+    fun `a frame rate of zero should start a freeze`() {
+        update(0, 1000, 30)
+
+        val freeze = update(1000, 2000, 0)
+
+        assertThat(
+            freeze,
+            equalTo(VideoFreeze(TRACK_SID, PARTICIPANT_SID, VideoFreezeCause.NO_FRAMES, 1000)),
+        )
+    }
+
+    @Test
+    fun `flat byte counters should start a freeze`() {
+        update(0, 1000, 30)
+
+        val freeze = update(1000, 1000, 30)
+
+        assertThat(freeze!!.cause, equalTo(VideoFreezeCause.NO_BYTES))
+    }
+
+    @Test
+    fun `collapsed dimensions should start a freeze`() {
+        update(0, 1000, 30)
+
+        val freeze = update(1000, 2000, 30, width = 0, height = 0)
+
+        assertThat(freeze!!.cause, equalTo(VideoFreezeCause.DIMENSIONS_COLLAPSED))
+    }
+
+    @Test
+    fun `recovered video should end the freeze with its duration`() {
+        update(0, 1000, 30)
+        update(1000, 1000, 0)
+        update(2000, 1000, 0)
+
+        val freeze = update(4000, 2000, 30)
+
+        assertThat(freeze!!.isOngoing, equalTo(false))
+        assertThat(freeze.durationMs, equalTo(3000L))
+        assertThat(
+            videoFreezeDetector.freezeStats[TRACK_SID],
+            equalTo(VideoFreezeStats(1, 3000)),
+        )
+    }
+
+    @Test
+    fun `a switched off track should not be reported as frozen`() {
+        update(0, 1000, 30)
+        videoFreezeDetector.setSwitchedOff(TRACK_SID, true)
+
+        val freeze = update(1000, 1000, 0)
+
+        assertThat(freeze, `is`(nullValue()))
+    }
+
+    private fun update(
+        timestamp: Long,
+        bytes: Long,
+        frameRate: Int,
+        width: Int = 640,
+        height: Int = 480,
+    ) = videoFreezeDetector.update(
+        TRACK_SID,
+        PARTICIPANT_SID,
+        true,
+        timestamp,
+        bytes,
+        frameRate,
+        width,
+        height,
+    )
+}
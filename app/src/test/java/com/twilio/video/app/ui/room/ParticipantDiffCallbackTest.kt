@@ -0,0 +1,71 @@
+package com.twilio.video.app.ui.room
+
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_FOUR
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_TWO
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.participant.ParticipantViewState
+import com.twilio.video.app.sdk.QoeScore
+import com.twilio.video.app.sdk.VideoTrackViewState
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.mockito.kotlin.mock
+
+class ParticipantDiffCallbackTest : BaseUnitTest() {
+
+    private val diffCallback = ParticipantAdapter.ParticipantDiffCallback()
+    private val videoTrack = mock<RemoteVideoTrack>()
+    private val participant = ParticipantViewState(
+        "1",
+        "Participant 1",
+        VideoTrackViewState(videoTrack),
+        networkQualityLevel = NETWORK_QUALITY_LEVEL_FOUR,
+    )
+
+    private fun changes(newParticipant: ParticipantViewState) =
+        diffCallback.getChangePayload(participant, newParticipant)
+
+    @Test
+    fun `a network quality change should only rebind the network quality`() {
+        assertThat(
+            changes(participant.copy(networkQualityLevel = NETWORK_QUALITY_LEVEL_TWO)),
+            equalTo<Any>(setOf(ParticipantChange.NETWORK_QUALITY)),
+        )
+    }
+
+    @Test
+    fun `mute, pin and quality score changes should be combined`() {
+        val newParticipant = participant.copy(isMuted = true, isPinned = true, qoeScore = QoeScore(4f, 4f))
+
+        assertThat(
+            changes(newParticipant),
+            equalTo<Any>(setOf(ParticipantChange.MUTE, ParticipantChange.PIN, ParticipantChange.QOE_SCORE)),
+        )
+    }
+
+    @Test
+    fun `a switched off track should not be treated as a new video track`() {
+        val newParticipant = participant.copy(videoTrack = VideoTrackViewState(videoTrack, true))
+
+        assertThat(changes(newParticipant), equalTo<Any>(setOf(ParticipantChange.SWITCHED_OFF)))
+    }
+
+    @Test
+    fun `a new video track should rebind the video track`() {
+        val newParticipant = participant.copy(videoTrack = VideoTrackViewState(mock<RemoteVideoTrack>(), true))
+
+        assertThat(changes(newParticipant), equalTo<Any>(setOf(ParticipantChange.VIDEO_TRACK)))
+    }
+
+    @Test
+    fun `changes to fields the thumbnail does not show should not rebind anything`() {
+        assertThat(changes(participant.copy(isDominantSpeaker = true)), equalTo<Any>(emptySet<ParticipantChange>()))
+    }
+
+    @Test
+    fun `an identity change should rebind the whole thumbnail`() {
+        assertThat(changes(participant.copy(identity = "Renamed")), nullValue())
+    }
+}
@@ -0,0 +1,102 @@
+package com.twilio.video.app.ui.room
+
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.TrackPriority
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.participant.ParticipantViewState
+import com.twilio.video.app.sdk.VideoTrackViewState
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.mockito.kotlin.anyOrNull
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+
+class ParticipantGridPagerTest : BaseUnitTest() {
+
+    private val gridPager = ParticipantGridPager(4)
+    private val thumbnails = (1..14).map { sid ->
+        ParticipantViewState(
+            sid.toString(),
+            "Participant $sid",
+            VideoTrackViewState(mock<RemoteVideoTrack>()),
+        )
+    }
+
+    private fun trackOf(index: Int) = thumbnails[index].getRemoteVideoTrack()!!
+
+    @Test
+    fun `a page should contain at most page size participants`() {
+        gridPager.page(thumbnails)
+        gridPager.nextPage()
+        gridPager.nextPage()
+        gridPager.nextPage()
+
+        val page = gridPager.page(thumbnails)
+
+        assertThat(gridPager.pageCount, equalTo(4))
+        assertThat(page.map { it.sid }, equalTo(listOf("13", "14")))
+    }
+
+    @Test
+    fun `the page should not move past the first or the last page`() {
+        gridPager.page(thumbnails.take(4))
+
+        assertThat(gridPager.previousPage(), equalTo(false))
+        assertThat(gridPager.nextPage(), equalTo(false))
+    }
+
+    @Test
+    fun `the page should be clamped when participants leave`() {
+        gridPager.page(thumbnails)
+        gridPager.nextPage()
+        gridPager.nextPage()
+
+        gridPager.page(thumbnails.take(6))
+
+        assertThat(gridPager.page, equalTo(1))
+    }
+
+    @Test
+    fun `adjacent pages should be prefetched at a low priority and other pages switched off`() {
+        gridPager.isManualTrackSwitchOff = true
+        gridPager.page(thumbnails)
+
+        gridPager.updateTracks(thumbnails, null)
+
+        verify(trackOf(0)).priority = null
+        verify(trackOf(4)).priority = TrackPriority.LOW
+        verify(trackOf(4), never()).switchOff()
+        verify(trackOf(8)).switchOff()
+    }
+
+    @Test
+    fun `tracks should only be updated when their tile state changes`() {
+        gridPager.isManualTrackSwitchOff = true
+        gridPager.page(thumbnails)
+        gridPager.updateTracks(thumbnails, null)
+
+        gridPager.nextPage()
+        gridPager.updateTracks(thumbnails, null)
+
+        verify(trackOf(4), times(1)).priority = TrackPriority.LOW
+        verify(trackOf(4)).priority = null
+        verify(trackOf(8)).switchOn()
+        verify(trackOf(12), times(1)).switchOff()
+    }
+
+    @Test
+    fun `the primary participant track should be switched on and its priority left to the participant manager`() {
+        gridPager.isManualTrackSwitchOff = true
+        gridPager.page(thumbnails)
+        gridPager.updateTracks(thumbnails, null)
+
+        gridPager.updateTracks(thumbnails, "13")
+
+        verify(trackOf(12)).switchOff()
+        verify(trackOf(12)).switchOn()
+        verify(trackOf(12), never()).priority = anyOrNull()
+    }
+}
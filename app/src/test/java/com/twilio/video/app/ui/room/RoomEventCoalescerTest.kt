@@ -0,0 +1,103 @@
+package com.twilio.video.app.ui.room
+
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_FIVE
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_ONE
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_THREE
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.sdk.TracedRoomEvent
+import com.twilio.video.app.ui.room.RoomEvent.Disconnected
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.MuteRemoteParticipant
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.NetworkQualityLevelChange
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.RemoteParticipantDisconnected
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.flow.MutableSharedFlow
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.test.TestCoroutineScope
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.After
+import org.junit.Test
+
+@ExperimentalCoroutinesApi
+class RoomEventCoalescerTest : BaseUnitTest() {
+
+    private val testScope = TestCoroutineScope()
+    private val roomEvents = MutableSharedFlow<RoomEvent>(extraBufferCapacity = 16)
+    private val batches = mutableListOf<List<RoomEvent>>()
+    private val supersededEvents = mutableListOf<RoomEvent>()
+    private val collectJob = testScope.launch {
+        RoomEventCoalescer(16).coalesce(roomEvents.map { TracedRoomEvent(it) }) { supersededEvents.add(it.roomEvent) }
+            .collect { batch -> batches.add(batch.map { it.roomEvent }) }
+    }
+
+    @After
+    fun tearDown() {
+        collectJob.cancel()
+        testScope.cleanupTestCoroutines()
+    }
+
+    @Test
+    fun `status updates within the window should be emitted as one batch`() {
+        roomEvents.tryEmit(NetworkQualityLevelChange("1", NETWORK_QUALITY_LEVEL_ONE))
+        roomEvents.tryEmit(MuteRemoteParticipant("2", true))
+        testScope.advanceTimeBy(15)
+
+        assertThat(batches.isEmpty(), equalTo(true))
+
+        testScope.advanceTimeBy(1)
+
+        assertThat(
+            batches,
+            equalTo(
+                listOf(
+                    listOf(
+                        NetworkQualityLevelChange("1", NETWORK_QUALITY_LEVEL_ONE),
+                        MuteRemoteParticipant("2", true),
+                    ),
+                ),
+            ),
+        )
+    }
+
+    @Test
+    fun `superseded status updates of a participant should be dropped`() {
+        roomEvents.tryEmit(NetworkQualityLevelChange("1", NETWORK_QUALITY_LEVEL_ONE))
+        roomEvents.tryEmit(NetworkQualityLevelChange("1", NETWORK_QUALITY_LEVEL_THREE))
+        roomEvents.tryEmit(NetworkQualityLevelChange("1", NETWORK_QUALITY_LEVEL_FIVE))
+
+        testScope.advanceTimeBy(16)
+
+        assertThat(
+            batches,
+            equalTo(listOf(listOf<RoomEvent>(NetworkQualityLevelChange("1", NETWORK_QUALITY_LEVEL_FIVE)))),
+        )
+        assertThat(
+            supersededEvents,
+            equalTo(
+                listOf<RoomEvent>(
+                    NetworkQualityLevelChange("1", NETWORK_QUALITY_LEVEL_ONE),
+                    NetworkQualityLevelChange("1", NETWORK_QUALITY_LEVEL_THREE),
+                ),
+            ),
+        )
+    }
+
+    @Test
+    fun `lifecycle events should flush the batch and never be merged`() {
+        roomEvents.tryEmit(MuteRemoteParticipant("2", true))
+        roomEvents.tryEmit(RemoteParticipantDisconnected("2"))
+        roomEvents.tryEmit(Disconnected)
+
+        assertThat(
+            batches,
+            equalTo(
+                listOf(
+                    listOf<RoomEvent>(MuteRemoteParticipant("2", true)),
+                    listOf<RoomEvent>(RemoteParticipantDisconnected("2")),
+                    listOf<RoomEvent>(Disconnected),
+                ),
+            ),
+        )
+    }
+}
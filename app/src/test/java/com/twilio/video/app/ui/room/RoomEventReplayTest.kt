@@ -0,0 +1,128 @@
+package com.twilio.video.app.ui.room
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_THREE
+import com.twilio.video.NetworkQualityLevel.NETWORK_QUALITY_LEVEL_UNKNOWN
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.sdk.FakeRoomEventJournalObjects
+import com.twilio.video.app.sdk.ParticipantSnapshot
+import com.twilio.video.app.sdk.RoomEventJournalReader
+import com.twilio.video.app.sdk.RoomEventRecorder
+import com.twilio.video.app.sdk.RoomManager
+import com.twilio.video.app.sdk.StatsTickJournalEntry
+import com.twilio.video.app.sdk.TrackStatsRates
+import com.twilio.video.app.ui.room.RoomEvent.Connected
+import com.twilio.video.app.ui.room.RoomEvent.Connecting
+import com.twilio.video.app.ui.room.RoomEvent.DominantSpeakerChanged
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.MuteRemoteParticipant
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.RemoteParticipantConnected
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.RemoteParticipantDisconnected
+import io.uniflow.test.rule.UniflowTestDispatchersRule
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.flow.filterNotNull
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.test.TestCoroutineDispatcher
+import kotlinx.coroutines.test.runBlockingTest
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Rule
+import org.junit.Test
+import org.mockito.kotlin.mock
+import java.io.StringReader
+import java.io.StringWriter
+
+@ExperimentalCoroutinesApi
+class RoomEventReplayTest : BaseUnitTest() {
+
+    @get:Rule
+    val rule = InstantTaskExecutorRule()
+
+    private val testDispatcher = TestCoroutineDispatcher()
+
+    @get:Rule
+    val coroutineScope = UniflowTestDispatchersRule(testDispatcher)
+
+    private val roomManager = RoomManager(mock(), mock(), mock(), testDispatcher).apply {
+        localParticipantManager = mock()
+    }
+    private val viewModel = RoomViewModel(roomManager, mock(), mock())
+    private val objects = FakeRoomEventJournalObjects()
+
+    /* statsTicks are recorded right before the event at their index, so they share its timestamp. */
+    private fun recordJournal(statsTicks: Map<Int, Map<String, TrackStatsRates>> = emptyMap()): String {
+        val journal = StringWriter()
+        var now = 0L
+        val recorder = RoomEventRecorder(CoroutineScope(testDispatcher), { now }) { journal }
+        val participants = listOf(
+            participant("L", isLocalParticipant = true),
+            participant("1"),
+            participant("2"),
+        )
+        listOf(
+            Connecting,
+            Connected(participants, objects.room("Room"), "Room"),
+            RemoteParticipantConnected(participant("3")),
+            DominantSpeakerChanged("3"),
+            RemoteParticipantDisconnected("2"),
+            MuteRemoteParticipant("1", true),
+        ).forEachIndexed { index, roomEvent ->
+            statsTicks[index]?.let { recorder.recordStatsTick(it) }
+            recorder.record(roomEvent)
+            now += 250
+        }
+        recorder.close()
+        return journal.toString()
+    }
+
+    private fun participant(sid: String, isLocalParticipant: Boolean = false) = objects.participant(
+        ParticipantSnapshot(
+            sid,
+            "Participant $sid",
+            if (isLocalParticipant) NETWORK_QUALITY_LEVEL_UNKNOWN else NETWORK_QUALITY_LEVEL_THREE,
+            hasVideoTrack = !isLocalParticipant,
+            hasAudioTrack = true,
+            isLocalParticipant = isLocalParticipant,
+        ),
+    )
+
+    @Test
+    fun `a replayed journal should result in the same view state as the recorded room`() {
+        val entries = RoomEventJournalReader(StringReader(recordJournal()), FakeRoomEventJournalObjects()).read()
+
+        val report = testDispatcher.runBlockingTest { RoomEventReplayer(roomManager, speed = 1.0).replay(entries) }
+
+        val roomViewState = viewModel.getState() as RoomViewState
+        assertThat(report.replayedEvents, equalTo(6))
+        assertThat(report.journalDurationMs, equalTo(1250L))
+        assertThat(roomViewState.participantThumbnails?.map { it.sid }?.sorted(), equalTo(listOf("1", "3", "L")))
+        assertThat(roomViewState.primaryParticipant.sid, equalTo("3"))
+        assertThat(roomViewState.participantThumbnails?.single { it.sid == "1" }?.isMuted, equalTo(true))
+    }
+
+    @Test
+    fun `replayed stats ticks should be published at their timestamps in between the events`() {
+        val firstTick = mapOf("MT1" to TrackStatsRates(64, 0f, 0f, 0))
+        val secondTick = mapOf("MT1" to TrackStatsRates(32, 5f, 0f, 20))
+        val statsTicks = ArrayList<StatsTickJournalEntry>()
+        val entries = RoomEventJournalReader(
+            StringReader(recordJournal(mapOf(1 to firstTick, 4 to secondTick))),
+            FakeRoomEventJournalObjects(),
+            onStatsTick = { statsTicks.add(it) },
+        ).read()
+        val publishedTicks = ArrayList<Pair<Long, Map<String, TrackStatsRates>>>()
+
+        val report = testDispatcher.runBlockingTest {
+            val job = launch {
+                roomManager.roomStats.filterNotNull().collect { publishedTicks.add(currentTime to it.trackRates) }
+            }
+            RoomEventReplayer(roomManager, speed = 1.0).replay(entries, statsTicks).also { job.cancel() }
+        }
+
+        val roomViewState = viewModel.getState() as RoomViewState
+        assertThat(report.replayedEvents, equalTo(6))
+        assertThat(report.replayedStatsTicks, equalTo(2))
+        assertThat(publishedTicks, equalTo(listOf(250L to firstTick, 1000L to secondTick)))
+        assertThat(roomViewState.roomStats?.trackRates, equalTo(secondTick))
+    }
+}
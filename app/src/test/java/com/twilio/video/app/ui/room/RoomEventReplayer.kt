@@ -0,0 +1,68 @@
+package com.twilio.video.app.ui.room
+
+import com.twilio.video.app.sdk.RoomEventJournalEntry
+import com.twilio.video.app.sdk.RoomManager
+import com.twilio.video.app.sdk.StatsTickJournalEntry
+import kotlinx.coroutines.delay
+
+data class RoomEventReplayReport(
+    val replayedEvents: Int,
+    val journalDurationMs: Long,
+    val elapsedNanos: Long,
+    val replayedStatsTicks: Int = 0,
+) {
+    val averageEventNanos: Long get() = if (replayedEvents > 0) elapsedNanos / replayedEvents else 0
+}
+
+/*
+ * Feeds the entries of a recorded journal into a RoomManager as if they came from the SDK. speed
+ * scales the gaps between events: 1 replays in real time, 10 ten times faster and
+ * Double.POSITIVE_INFINITY sends every event back to back. Gaps are waited for with delay, so a
+ * test dispatcher replays any speed in virtual time.
+ *
+ * The stats ticks of the journal are published to RoomManager.roomStats at their own timestamps,
+ * in between the events. A tick is recorded before the events its stats update sends, so it is
+ * replayed before the events that share its timestamp.
+ */
+class RoomEventReplayer(
+    private val roomManager: RoomManager,
+    private val speed: Double = Double.POSITIVE_INFINITY,
+    private val clock: () -> Long = System::nanoTime,
+) {
+
+    suspend fun replay(
+        entries: List<RoomEventJournalEntry>,
+        statsTicks: List<StatsTickJournalEntry> = emptyList(),
+    ): RoomEventReplayReport {
+        val start = clock()
+        var previousTimestampMs = minOf(
+            entries.firstOrNull()?.timestampMs ?: Long.MAX_VALUE,
+            statsTicks.firstOrNull()?.timestampMs ?: Long.MAX_VALUE,
+        )
+        var tickIndex = 0
+        suspend fun delayUntil(timestampMs: Long) {
+            val gapMs = ((timestampMs - previousTimestampMs) / speed).toLong()
+            if (gapMs > 0) delay(gapMs)
+            previousTimestampMs = timestampMs
+        }
+        suspend fun replayStatsTicksUntil(timestampMs: Long) {
+            while (tickIndex < statsTicks.size && statsTicks[tickIndex].timestampMs <= timestampMs) {
+                val statsTick = statsTicks[tickIndex++]
+                delayUntil(statsTick.timestampMs)
+                roomManager.replayStatsTick(statsTick.trackRates)
+            }
+        }
+        entries.forEach { entry ->
+            replayStatsTicksUntil(entry.timestampMs)
+            delayUntil(entry.timestampMs)
+            roomManager.sendRoomEvent(entry.roomEvent)
+        }
+        replayStatsTicksUntil(Long.MAX_VALUE)
+        return RoomEventReplayReport(
+            entries.size,
+            maxOf(entries.lastOrNull()?.timestampMs ?: 0, statsTicks.lastOrNull()?.timestampMs ?: 0),
+            clock() - start,
+            statsTicks.size,
+        )
+    }
+}
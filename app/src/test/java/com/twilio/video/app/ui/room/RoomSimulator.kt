@@ -0,0 +1,286 @@
+package com.twilio.video.app.ui.room
+
+import com.twilio.video.LocalParticipant
+import com.twilio.video.NetworkQualityLevel
+import com.twilio.video.RemoteAudioTrack
+import com.twilio.video.RemoteAudioTrackPublication
+import com.twilio.video.RemoteAudioTrackStats
+import com.twilio.video.RemoteParticipant
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.RemoteVideoTrackPublication
+import com.twilio.video.RemoteVideoTrackStats
+import com.twilio.video.Room
+import com.twilio.video.StatsListener
+import com.twilio.video.StatsReport
+import com.twilio.video.VideoDimensions
+import com.twilio.video.app.participant.DominantSpeakerPolicy
+import com.twilio.video.app.participant.ParticipantManager
+import com.twilio.video.app.sdk.CAMERA_TRACK_NAME
+import com.twilio.video.app.sdk.MICROPHONE_TRACK_NAME
+import com.twilio.video.app.sdk.RemoteParticipantListener
+import com.twilio.video.app.sdk.RoomEventDispatcherMetrics
+import com.twilio.video.app.sdk.RoomEventTracer
+import com.twilio.video.app.sdk.RoomManager
+import com.twilio.video.app.sdk.StatsField.BYTES_RECEIVED
+import com.twilio.video.app.sdk.StatsField.CODEC
+import com.twilio.video.app.sdk.StatsField.DIMENSIONS
+import com.twilio.video.app.sdk.StatsField.FRAME_RATE
+import com.twilio.video.app.sdk.StatsField.JITTER
+import com.twilio.video.app.sdk.StatsField.PACKETS_RECEIVED
+import com.twilio.video.app.sdk.StatsPollingPolicy
+import com.twilio.video.app.sdk.setStatsField
+import com.twilio.video.app.sdk.trackStats
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.test.TestCoroutineDispatcher
+import org.mockito.kotlin.any
+import org.mockito.kotlin.doAnswer
+import org.mockito.kotlin.doReturn
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.whenever
+import java.lang.management.ManagementFactory
+import java.util.Random
+
+data class RoomSimulation(
+    val participantCount: Int,
+    val durationMs: Long = 30_000,
+    val tickMs: Long = 100,
+    /* Remote participants that leave and are replaced by a new one. */
+    val churnPerSecond: Double = 0.5,
+    val dominantSpeakerChangesPerSecond: Double = 1.0,
+    val networkQualityChangesPerParticipantPerSecond: Double = 0.1,
+    val videoBitrateKbps: Int = 500,
+    val audioBitrateKbps: Int = 32,
+    val seed: Long = 1,
+)
+
+data class RoomSimulationReport(
+    val simulation: RoomSimulation,
+    val dispatcherMetrics: RoomEventDispatcherMetrics,
+    val elapsedNanos: Long,
+    val allocatedBytes: Long,
+    val thumbnailCount: Int,
+    val latencies: String,
+) {
+    val eventsPerSecond: Long
+        get() = if (elapsedNanos > 0) dispatcherMetrics.dispatchedEvents * 1_000_000_000 / elapsedNanos else 0
+
+    val allocatedBytesPerEvent: Long
+        get() = if (dispatcherMetrics.dispatchedEvents > 0) allocatedBytes / dispatcherMetrics.dispatchedEvents else 0
+
+    override fun toString() = buildString {
+        append("${simulation.participantCount} participants, ${simulation.durationMs} ms simulated\n")
+        append("  events: ${dispatcherMetrics.dispatchedEvents} dispatched, ")
+        append("${dispatcherMetrics.droppedEvents} dropped, max queue depth ${dispatcherMetrics.maxQueueDepth}\n")
+        append("  throughput: $eventsPerSecond events/s over ${elapsedNanos / 1_000_000} ms\n")
+        append("  allocations: ${allocatedBytes / 1024} KiB, $allocatedBytesPerEvent bytes/event\n")
+        append(latencies.prependIndent("  "))
+    }
+}
+
+/*
+ * Stands in for the SDK of a room with many remote participants: it calls the Room.Listener of a
+ * RoomManager and the RemoteParticipantListener of every participant like the SDK would, and
+ * answers getStats with a payload for the audio and video track of every participant. The room
+ * runs on a TestCoroutineDispatcher in virtual time, so the stats ticker, the event coalescing
+ * window and the dominant speaker hold time behave as in a real call while the simulation runs as
+ * fast as the app can process the events.
+ *
+ * Throughput and latency are measured in wall time, latency from the SDK callback until the
+ * RoomViewModel applied the resulting state. Allocations are those of the test thread, which runs
+ * the whole pipeline but also includes the mocks the simulator creates for joining participants.
+ */
+@ExperimentalCoroutinesApi
+class RoomSimulator(
+    private val simulation: RoomSimulation,
+    private val testDispatcher: TestCoroutineDispatcher,
+) {
+
+    private val random = Random(simulation.seed)
+    private val roomEventTracer = RoomEventTracer(true, System::nanoTime, false)
+    val roomManager = RoomManager(
+        mock(),
+        mock(),
+        mock(),
+        testDispatcher,
+        roomEventTracer,
+    ) { testDispatcher.currentTime }.apply {
+        localParticipantManager = mock()
+    }
+    val participantManager = ParticipantManager(DominantSpeakerPolicy.DAMPED) { testDispatcher.currentTime }
+    val roomViewModel = RoomViewModel(
+        roomManager,
+        mock(),
+        mock(),
+        participantManager,
+        roomEventCoalescer = RoomEventCoalescer(),
+    )
+
+    private val remoteParticipantListener = RemoteParticipantListener(roomManager)
+    private val participants = ArrayList<SimulatedParticipant>()
+    private val remoteAudioTrackStats = ArrayList<RemoteAudioTrackStats>()
+    private val remoteVideoTrackStats = ArrayList<RemoteVideoTrackStats>()
+    private val statsReport = mock<StatsReport> {
+        on { remoteAudioTrackStats } doReturn remoteAudioTrackStats
+        on { remoteVideoTrackStats } doReturn remoteVideoTrackStats
+    }
+    private var nextParticipant = 0
+    private val localParticipant = mock<LocalParticipant> {
+        on { sid } doReturn "PA-local"
+        on { identity } doReturn "Local participant"
+        on { networkQualityLevel } doReturn NetworkQualityLevel.NETWORK_QUALITY_LEVEL_UNKNOWN
+    }
+    private val room = mock<Room> {
+        on { sid } doReturn "RM-simulated"
+        on { name } doReturn "simulated"
+        on { localParticipant } doReturn localParticipant
+        on { remoteParticipants } doAnswer { participants.map { it.remoteParticipant } }
+    }
+
+    init {
+        doAnswer { invocation ->
+            updateStats()
+            invocation.getArgument<StatsListener>(0).onStats(listOf(statsReport))
+        }.whenever(room).getStats(any())
+        repeat(simulation.participantCount) { participants.add(SimulatedParticipant()) }
+    }
+
+    fun run(): RoomSimulationReport {
+        roomEventTracer.reset()
+        roomManager.roomEventDispatcher.resetMetrics()
+        val start = System.nanoTime()
+        val allocatedBefore = allocatedBytes()
+
+        roomManager.roomListener.onConnected(room)
+        for (tick in 0 until simulation.durationMs / simulation.tickMs) {
+            repeat(eventsThisTick(simulation.churnPerSecond)) { replaceParticipant() }
+            repeat(eventsThisTick(simulation.dominantSpeakerChangesPerSecond)) {
+                roomManager.roomListener.onDominantSpeakerChanged(room, randomParticipant().remoteParticipant)
+            }
+            val networkQualityChangesPerSecond =
+                simulation.networkQualityChangesPerParticipantPerSecond * participants.size
+            repeat(eventsThisTick(networkQualityChangesPerSecond)) {
+                val participant = randomParticipant()
+                val networkQualityLevel = NETWORK_QUALITY_LEVELS[random.nextInt(NETWORK_QUALITY_LEVELS.size)]
+                remoteParticipantListener.onNetworkQualityLevelChanged(participant.remoteParticipant, networkQualityLevel)
+            }
+            testDispatcher.advanceTimeBy(simulation.tickMs)
+        }
+        roomManager.updateStatsPollingPolicy(StatsPollingPolicy.PAUSED)
+        testDispatcher.advanceUntilIdle()
+
+        val allocatedBytes = allocatedBytes() - allocatedBefore
+        val elapsedNanos = System.nanoTime() - start
+        val roomViewState = roomViewModel.getState() as RoomViewState
+        return RoomSimulationReport(
+            simulation,
+            roomManager.roomEventDispatcher.metrics,
+            elapsedNanos,
+            allocatedBytes,
+            roomViewState.participantThumbnails?.size ?: 0,
+            roomEventTracer.dump(),
+        )
+    }
+
+    private fun replaceParticipant() {
+        if (participants.isEmpty()) return
+        val leaving = participants.removeAt(random.nextInt(participants.size))
+        remoteAudioTrackStats.remove(leaving.audioTrackStats)
+        remoteVideoTrackStats.remove(leaving.videoTrackStats)
+        roomManager.roomListener.onParticipantDisconnected(room, leaving.remoteParticipant)
+
+        val joining = SimulatedParticipant()
+        participants.add(joining)
+        roomManager.roomListener.onParticipantConnected(room, joining.remoteParticipant)
+        remoteParticipantListener.onAudioTrackSubscribed(
+            joining.remoteParticipant,
+            joining.audioTrackPublication,
+            joining.audioTrack,
+        )
+        remoteParticipantListener.onVideoTrackSubscribed(
+            joining.remoteParticipant,
+            joining.videoTrackPublication,
+            joining.videoTrack,
+        )
+    }
+
+    private fun randomParticipant() = participants[random.nextInt(participants.size)]
+
+    /* Spreads a rate over the ticks, carrying the fraction over at random. */
+    private fun eventsThisTick(ratePerSecond: Double): Int {
+        val expected = ratePerSecond * simulation.tickMs / 1000
+        val events = expected.toInt()
+        return if (random.nextDouble() < expected - events) events + 1 else events
+    }
+
+    /* Cumulative counters since the participant joined, at the configured bitrates. */
+    private fun updateStats() {
+        val now = testDispatcher.currentTime
+        participants.forEach { participant ->
+            val elapsedMs = now - participant.joinTimestamp
+            val audioBytes = (elapsedMs * simulation.audioBitrateKbps / 8).toInt()
+            val videoBytes = (elapsedMs * simulation.videoBitrateKbps / 8).toInt()
+            participant.audioTrackStats.setStatsField(BYTES_RECEIVED, audioBytes)
+            participant.audioTrackStats.setStatsField(PACKETS_RECEIVED, (elapsedMs / 20).toInt())
+            participant.videoTrackStats.setStatsField(BYTES_RECEIVED, videoBytes)
+            participant.videoTrackStats.setStatsField(PACKETS_RECEIVED, videoBytes / 1200)
+        }
+    }
+
+    private fun allocatedBytes(): Long {
+        val threadMXBean = ManagementFactory.getThreadMXBean() as com.sun.management.ThreadMXBean
+        return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().id)
+    }
+
+    private inner class SimulatedParticipant {
+        val sid = "PA%04d".format(nextParticipant++)
+        val joinTimestamp = testDispatcher.currentTime
+        val audioTrack = mock<RemoteAudioTrack> {
+            on { sid } doReturn "MTa-$sid"
+            on { name } doReturn MICROPHONE_TRACK_NAME
+        }
+        val videoTrack = mock<RemoteVideoTrack> {
+            on { sid } doReturn "MTv-$sid"
+            on { name } doReturn CAMERA_TRACK_NAME
+        }
+        val audioTrackPublication = mock<RemoteAudioTrackPublication> {
+            on { trackSid } doReturn "MTa-$sid"
+            on { trackName } doReturn MICROPHONE_TRACK_NAME
+            on { isTrackSubscribed } doReturn true
+            on { remoteAudioTrack } doReturn audioTrack
+            on { audioTrack } doReturn audioTrack
+        }
+        val videoTrackPublication = mock<RemoteVideoTrackPublication> {
+            on { trackSid } doReturn "MTv-$sid"
+            on { trackName } doReturn CAMERA_TRACK_NAME
+            on { isTrackSubscribed } doReturn true
+            on { remoteVideoTrack } doReturn videoTrack
+            on { videoTrack } doReturn videoTrack
+        }
+        val remoteParticipant = mock<RemoteParticipant> {
+            on { sid } doReturn sid
+            on { identity } doReturn "Participant $sid"
+            on { networkQualityLevel } doReturn NetworkQualityLevel.NETWORK_QUALITY_LEVEL_FIVE
+            on { audioTracks } doReturn listOf(audioTrackPublication)
+            on { remoteAudioTracks } doReturn listOf(audioTrackPublication)
+            on { videoTracks } doReturn listOf(videoTrackPublication)
+            on { remoteVideoTracks } doReturn listOf(videoTrackPublication)
+        }
+        val audioTrackStats = trackStats<RemoteAudioTrackStats>("MTa-$sid", CODEC to "opus", JITTER to 10)
+        val videoTrackStats = trackStats<RemoteVideoTrackStats>(
+            "MTv-$sid",
+            CODEC to "VP8",
+            FRAME_RATE to 30,
+            DIMENSIONS to VideoDimensions(640, 480),
+        )
+
+        init {
+            remoteAudioTrackStats.add(audioTrackStats)
+            remoteVideoTrackStats.add(videoTrackStats)
+        }
+    }
+
+    private companion object {
+        val NETWORK_QUALITY_LEVELS = NetworkQualityLevel.values()
+            .filter { it != NetworkQualityLevel.NETWORK_QUALITY_LEVEL_UNKNOWN }
+    }
+}
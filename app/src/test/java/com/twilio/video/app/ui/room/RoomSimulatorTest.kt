@@ -0,0 +1,45 @@
+package com.twilio.video.app.ui.room
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule
+import com.twilio.video.app.BaseUnitTest
+import io.uniflow.test.rule.UniflowTestDispatchersRule
+import junitparams.JUnitParamsRunner
+import junitparams.Parameters
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.test.TestCoroutineDispatcher
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import timber.log.Timber
+
+@ExperimentalCoroutinesApi
+@RunWith(JUnitParamsRunner::class)
+class RoomSimulatorTest : BaseUnitTest() {
+
+    @get:Rule
+    val rule = InstantTaskExecutorRule()
+
+    private val testDispatcher = TestCoroutineDispatcher()
+
+    @get:Rule
+    val coroutineScope = UniflowTestDispatchersRule(testDispatcher)
+
+    @Parameters(method = "params")
+    @Test
+    fun `a simulated room should keep every participant and not drop events`(participantCount: Int) {
+        val simulator = RoomSimulator(RoomSimulation(participantCount), testDispatcher)
+
+        val report = simulator.run()
+
+        Timber.i("Room simulation -> %s", report)
+        val roomViewState = simulator.roomViewModel.getState() as RoomViewState
+        val sids = roomViewState.participantThumbnails?.map { it.sid }.orEmpty()
+        assertThat(report.thumbnailCount, equalTo(participantCount + 1))
+        assertThat(report.dispatcherMetrics.droppedEvents, equalTo(0L))
+        assertThat(sids.contains(roomViewState.primaryParticipant.sid), equalTo(true))
+    }
+
+    fun params() = arrayOf(10, 50, 100)
+}
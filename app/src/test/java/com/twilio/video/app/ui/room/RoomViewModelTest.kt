@@ -216,6 +216,35 @@ class RoomViewModelTest : BaseUnitTest() {
         )
     }
 
+    @Test
+    fun `The state updates made for an event should be committed as a single state on the next frame`() {
+        val frameScheduler = TestFrameScheduler()
+        viewModel = RoomViewModel(
+            roomManager,
+            mock(),
+            permissionUtil,
+            participantManager,
+            frameScheduler = frameScheduler,
+        )
+        testObserver = viewModel.createTestObserver()
+        connect()
+        frameScheduler.frame()
+
+        roomManager.sendRoomEvent(ConnectFailure)
+        frameScheduler.frame()
+
+        testObserver.verifySequence(
+            initialRoomViewState.copy(configuration = RoomViewConfiguration.Connecting),
+            ShowConnectFailureDialog,
+            Disconnected,
+            initialRoomViewState.copy(
+                configuration = RoomViewConfiguration.Lobby,
+                primaryParticipant = localParticipantViewState,
+                participantThumbnails = listOf(localParticipantViewState),
+            ),
+        )
+    }
+
     @Test
     fun `The RecordingStarted event should set the isRecording property to true`() {
         connect()
@@ -0,0 +1,120 @@
+package com.twilio.video.app.ui.room
+
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.participant.ParticipantViewState
+import com.twilio.video.app.sdk.RoomEventTrace
+import com.twilio.video.app.sdk.RoomEventTracer
+import com.twilio.video.app.ui.room.RoomEvent.RemoteParticipantEvent.MuteRemoteParticipant
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.concurrent.thread
+
+class RoomViewStateCommitterTest : BaseUnitTest() {
+
+    private val frameScheduler = TestFrameScheduler()
+    private var roomViewState = RoomViewState(ParticipantViewState())
+    private val committedStates = mutableListOf<RoomViewState>()
+    private val committedTraces = mutableListOf<List<RoomEventTrace>>()
+    private val roomViewStateCommitter = RoomViewStateCommitter(frameScheduler) { reducer, roomEventTraces ->
+        roomViewState = reducer(roomViewState)
+        committedStates.add(roomViewState)
+        committedTraces.add(roomEventTraces)
+    }
+
+    @Test
+    fun `updates should not be committed before the next frame`() {
+        roomViewStateCommitter.update { it.copy(isRecording = true) }
+
+        assertThat(committedStates.size, equalTo(0))
+        assertThat(frameScheduler.hasPendingFrame, equalTo(true))
+    }
+
+    @Test
+    fun `updates made within a frame should be committed as one state in order`() {
+        roomViewStateCommitter.update { it.copy(isAudioMuted = true) }
+        roomViewStateCommitter.update { it.copy(isVideoOff = true) }
+        roomViewStateCommitter.update { it.copy(isAudioMuted = !it.isAudioMuted) }
+
+        frameScheduler.frame()
+
+        assertThat(committedStates, equalTo(listOf(RoomViewState(ParticipantViewState(), isVideoOff = true))))
+        assertThat(roomViewStateCommitter.updateCount, equalTo(3L))
+        assertThat(roomViewStateCommitter.commitCount, equalTo(1L))
+    }
+
+    @Test
+    fun `updates made after a frame should be committed on the following frame`() {
+        roomViewStateCommitter.update { it.copy(isRecording = true) }
+        frameScheduler.frame()
+
+        roomViewStateCommitter.update { it.copy(isRecording = false) }
+        frameScheduler.frame()
+
+        assertThat(committedStates.map { it.isRecording }, equalTo(listOf(true, false)))
+    }
+
+    @Test
+    fun `a frame without updates should not commit anything`() {
+        roomViewStateCommitter.update { it.copy(isRecording = true) }
+        frameScheduler.frame()
+
+        frameScheduler.frame()
+
+        assertThat(committedStates.size, equalTo(1))
+        assertThat(frameScheduler.hasPendingFrame, equalTo(false))
+    }
+
+    @Test
+    fun `the traces of the updates made within a frame should be committed with them`() {
+        val roomEventTracer = RoomEventTracer(true, { 0 }, false)
+        val roomEvents = listOf(MuteRemoteParticipant("1", true), MuteRemoteParticipant("2", true))
+        val (firstTraces, secondTraces) = roomEvents.map {
+            roomEventTracer.observed(listOfNotNull(roomEventTracer.created(it)))
+        }
+
+        roomViewStateCommitter.update(firstTraces) { it.copy(isRecording = true) }
+        roomViewStateCommitter.update(secondTraces) { it.copy(isRecording = false) }
+        frameScheduler.frame()
+
+        assertThat(committedTraces, equalTo(listOf(firstTraces + secondTraces)))
+    }
+
+    @Test
+    fun `updates made from background threads should all be committed on the next frame`() {
+        val appliedReducers = AtomicInteger()
+        val start = CountDownLatch(1)
+        val threads = (1..4).map {
+            thread {
+                start.await()
+                repeat(1000) {
+                    roomViewStateCommitter.update { state -> state.also { appliedReducers.incrementAndGet() } }
+                }
+            }
+        }
+
+        start.countDown()
+        threads.forEach { it.join() }
+        frameScheduler.frame()
+
+        assertThat(appliedReducers.get(), equalTo(4000))
+        assertThat(roomViewStateCommitter.updateCount, equalTo(4000L))
+        assertThat(roomViewStateCommitter.commitCount, equalTo(1L))
+        assertThat(frameScheduler.frameCount, equalTo(1))
+    }
+
+    @Test
+    fun `the immediate frame scheduler should commit every update on its own`() {
+        val immediateCommitter = RoomViewStateCommitter(FrameScheduler.Immediate) { reducer, _ ->
+            committedStates.add(reducer(roomViewState))
+        }
+
+        immediateCommitter.update { it.copy(isAudioMuted = true) }
+        immediateCommitter.update { it.copy(isVideoOff = true) }
+
+        assertThat(committedStates.size, equalTo(2))
+        assertThat(immediateCommitter.commitCount, equalTo(2L))
+    }
+}
@@ -0,0 +1,80 @@
+package com.twilio.video.app.ui.room
+
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.participant.ParticipantViewState
+import com.twilio.video.app.sdk.RoomStats
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+class RoomViewStateSlicesTest : BaseUnitTest() {
+
+    private val roomViewStateSlices = RoomViewStateSlices()
+    private val boundParticipants = mutableListOf<ParticipantsSlice>()
+    private val boundLocalControls = mutableListOf<LocalControlsSlice>()
+    private val boundStats = mutableListOf<StatsSlice>()
+    private val thumbnails = listOf(ParticipantViewState("L", isLocalParticipant = true), ParticipantViewState("1"))
+    private val connectedState = RoomViewState(
+        thumbnails[1],
+        title = "Room",
+        participantThumbnails = thumbnails,
+        configuration = RoomViewConfiguration.Connected,
+    )
+
+    init {
+        roomViewStateSlices.observe(RoomViewState::participantsSlice) { boundParticipants.add(it) }
+        roomViewStateSlices.observe(RoomViewState::localControlsSlice) { boundLocalControls.add(it) }
+        roomViewStateSlices.observe(RoomViewState::statsSlice) { boundStats.add(it) }
+    }
+
+    @Test
+    fun `every slice should be bound with the first state`() {
+        roomViewStateSlices.update(connectedState)
+
+        assertThat(boundParticipants.single(), equalTo(connectedState.participantsSlice))
+        assertThat(boundLocalControls.single(), equalTo(connectedState.localControlsSlice))
+        assertThat(boundStats.single(), equalTo(connectedState.statsSlice))
+    }
+
+    @Test
+    fun `a stats update should only rebind the stats`() {
+        roomViewStateSlices.update(connectedState)
+        val roomStats = RoomStats(emptyMap(), emptyMap())
+
+        roomViewStateSlices.update(connectedState.copy(roomStats = roomStats))
+
+        assertThat(boundParticipants.size, equalTo(1))
+        assertThat(boundLocalControls.size, equalTo(1))
+        assertThat(boundStats.last().roomStats, equalTo(roomStats))
+    }
+
+    @Test
+    fun `a participant update should not rebind the stats while media is still streaming`() {
+        roomViewStateSlices.update(connectedState)
+        val participantThumbnails = thumbnails + ParticipantViewState("2")
+
+        roomViewStateSlices.update(connectedState.copy(participantThumbnails = participantThumbnails))
+
+        assertThat(boundParticipants.last().participantThumbnails, equalTo(participantThumbnails))
+        assertThat(boundLocalControls.size, equalTo(1))
+        assertThat(boundStats.size, equalTo(1))
+    }
+
+    @Test
+    fun `rebind should bind every slice again with the last state`() {
+        roomViewStateSlices.update(connectedState)
+
+        roomViewStateSlices.rebind()
+
+        assertThat(boundParticipants.size, equalTo(2))
+        assertThat(boundLocalControls.size, equalTo(2))
+        assertThat(boundStats.size, equalTo(2))
+    }
+
+    @Test
+    fun `rebind without a state should not bind anything`() {
+        roomViewStateSlices.rebind()
+
+        assertThat(boundParticipants.size, equalTo(0))
+    }
+}
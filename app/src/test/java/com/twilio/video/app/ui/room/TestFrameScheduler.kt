@@ -0,0 +1,25 @@
+package com.twilio.video.app.ui.room
+
+/*
+ * Stands in for the Choreographer on the JVM: callbacks run when the test calls frame, and those
+ * posted while a frame runs wait for the next one.
+ */
+class TestFrameScheduler : FrameScheduler {
+
+    private var callbacks = ArrayList<() -> Unit>()
+    var frameCount = 0
+        private set
+
+    val hasPendingFrame: Boolean get() = callbacks.isNotEmpty()
+
+    override fun postFrameCallback(callback: () -> Unit) {
+        callbacks.add(callback)
+    }
+
+    fun frame() {
+        frameCount++
+        val frameCallbacks = callbacks
+        callbacks = ArrayList()
+        frameCallbacks.forEach { it() }
+    }
+}
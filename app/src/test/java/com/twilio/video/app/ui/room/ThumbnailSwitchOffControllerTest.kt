@@ -0,0 +1,89 @@
+package com.twilio.video.app.ui.room
+
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.app.BaseUnitTest
+import com.twilio.video.app.participant.ParticipantViewState
+import com.twilio.video.app.sdk.VideoTrackViewState
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.test.TestCoroutineDispatcher
+import org.junit.After
+import org.junit.Test
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.verifyNoInteractions
+
+@ExperimentalCoroutinesApi
+class ThumbnailSwitchOffControllerTest : BaseUnitTest() {
+
+    private val testDispatcher = TestCoroutineDispatcher()
+    private val controller = ThumbnailSwitchOffController(CoroutineScope(testDispatcher), 1000).apply {
+        isEnabled = true
+    }
+    private val thumbnails = (1..4).map { sid ->
+        ParticipantViewState(
+            sid.toString(),
+            "Participant $sid",
+            VideoTrackViewState(mock<RemoteVideoTrack>()),
+        )
+    }
+
+    @After
+    fun tearDown() {
+        testDispatcher.cleanupTestCoroutines()
+    }
+
+    @Test
+    fun `off screen thumbnails should be switched off after the grace period`() {
+        controller.update(thumbnails, 0, 1, null)
+
+        testDispatcher.advanceTimeBy(999)
+        verify(thumbnails[2].getRemoteVideoTrack()!!, never()).switchOff()
+
+        testDispatcher.advanceTimeBy(1)
+        verify(thumbnails[2].getRemoteVideoTrack()!!).switchOff()
+        verify(thumbnails[3].getRemoteVideoTrack()!!).switchOff()
+        verify(thumbnails[0].getRemoteVideoTrack()!!, never()).switchOff()
+    }
+
+    @Test
+    fun `thumbnails that return within the grace period should not be switched off`() {
+        controller.update(thumbnails, 0, 1, null)
+        testDispatcher.advanceTimeBy(500)
+
+        controller.update(thumbnails, 2, 3, null)
+        testDispatcher.advanceTimeBy(500)
+
+        verifyNoInteractions(thumbnails[2].getRemoteVideoTrack()!!)
+    }
+
+    @Test
+    fun `switched off thumbnails should be switched on when they are visible again`() {
+        controller.update(thumbnails, 0, 1, null)
+        testDispatcher.advanceTimeBy(1000)
+
+        controller.update(thumbnails, 2, 3, null)
+
+        verify(thumbnails[2].getRemoteVideoTrack()!!).switchOn()
+    }
+
+    @Test
+    fun `the primary participant should never be switched off`() {
+        controller.update(thumbnails, 0, 1, "4")
+
+        testDispatcher.advanceTimeBy(1000)
+
+        verifyNoInteractions(thumbnails[3].getRemoteVideoTrack()!!)
+    }
+
+    @Test
+    fun `a disabled controller should not switch off any tracks`() {
+        controller.isEnabled = false
+
+        controller.update(thumbnails, 0, 1, null)
+        testDispatcher.advanceTimeBy(1000)
+
+        verifyNoInteractions(thumbnails[2].getRemoteVideoTrack()!!)
+    }
+}
@@ -0,0 +1,82 @@
+package com.twilio.video.app.ui.room
+
+import android.view.View
+import com.twilio.video.RemoteVideoTrack
+import com.twilio.video.VideoContentPreferences
+import com.twilio.video.app.BaseUnitTest
+import junitparams.JUnitParamsRunner
+import junitparams.Parameters
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.mockito.kotlin.any
+import org.mockito.kotlin.argumentCaptor
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+
+@RunWith(JUnitParamsRunner::class)
+class VideoRenderSizesTest : BaseUnitTest() {
+
+    private val videoRenderSizes = VideoRenderSizes().apply { isEnabled = true }
+    private val videoTrack = mock<RemoteVideoTrack>()
+    private val thumbnailReporter = VideoRenderSizeReporter(mock<View>(), videoRenderSizes)
+    private val primaryReporter = VideoRenderSizeReporter(mock<View>(), videoRenderSizes)
+
+    @Parameters(method = "renderSizeParams")
+    @Test
+    fun `render sizes should be bucketed to the smallest bucket that covers them`(
+        width: Int,
+        height: Int,
+        bucket: Int,
+    ) {
+        assertThat(VideoRenderSizes.renderSizeBucket(width, height), equalTo(bucket))
+    }
+
+    fun renderSizeParams() =
+        arrayOf(
+            arrayOf(120, 160, 0),
+            arrayOf(320, 180, 0),
+            arrayOf(321, 180, 1),
+            arrayOf(1080, 1920, 4),
+            arrayOf(4000, 3000, 4),
+        )
+
+    @Test
+    fun `content preferences should only be sent when the bucket changes`() {
+        thumbnailReporter.videoTrack = videoTrack
+        thumbnailReporter.onRenderSizeChanged(120, 160)
+        thumbnailReporter.onRenderSizeChanged(150, 170)
+
+        verify(videoTrack, times(1)).setContentPreferences(any())
+
+        thumbnailReporter.onRenderSizeChanged(600, 340)
+
+        verify(videoTrack, times(2)).setContentPreferences(any())
+    }
+
+    @Test
+    fun `the largest render size of all views of a track should be sent`() {
+        primaryReporter.videoTrack = videoTrack
+        primaryReporter.onRenderSizeChanged(1080, 1920)
+        thumbnailReporter.videoTrack = videoTrack
+        thumbnailReporter.onRenderSizeChanged(120, 160)
+
+        val contentPreferences = argumentCaptor<VideoContentPreferences>().apply {
+            verify(videoTrack).setContentPreferences(capture())
+        }.lastValue
+        assertThat(contentPreferences.renderDimensions!!.width, equalTo(1920))
+    }
+
+    @Test
+    fun `content preferences should not be sent when disabled`() {
+        videoRenderSizes.isEnabled = false
+
+        thumbnailReporter.videoTrack = videoTrack
+        thumbnailReporter.onRenderSizeChanged(120, 160)
+
+        verify(videoTrack, never()).setContentPreferences(any())
+    }
+}